@@ -0,0 +1,14 @@
+package com.cinemastore.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Асинхронное выполнение задач (@Async).
+ * Исполнитель applicationTaskExecutor создает Spring Boot: в профиле virtual
+ * задачи выполняются на виртуальных потоках, иначе - на пуле spring.task.execution.pool.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
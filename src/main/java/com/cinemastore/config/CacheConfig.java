@@ -0,0 +1,30 @@
+package com.cinemastore.config;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация кэширования.
+ * Очистка кэша откладывается до коммита транзакции, чтобы кэш не заполнился
+ * данными, которые еще не видны в БД. Гонку это не исключает: запрос, прочитавший
+ * БД до коммита, может положить устаревшее значение уже после очистки. Такие записи
+ * живут до следующего изменения или периодического сброса (app.users.statistics-refresh-ms).
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    
+    public static final String USER_STATISTICS = "userStatistics";
+    public static final String MOVIES_BY_GENRE = "moviesByGenre";
+    public static final String MOVIES_BY_STUDIO = "moviesByStudio";
+    
+    @Bean
+    public CacheManager cacheManager() {
+        return new TransactionAwareCacheManagerProxy(
+            new ConcurrentMapCacheManager(USER_STATISTICS, MOVIES_BY_GENRE, MOVIES_BY_STUDIO));
+    }
+}
@@ -0,0 +1,24 @@
+package com.cinemastore.config;
+
+import com.cinemastore.dto.FieldSelection;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Конфигурация JSON-сериализации для REST API
+ */
+@Configuration
+public class JacksonConfig {
+    
+    /**
+     * По умолчанию проекции сериализуются целиком; выборка полей задается через FieldSelection
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSelectionCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+            .addFilter(FieldSelection.FILTER_ID, SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.cinemastore.config;
+
+import com.cinemastore.service.ReadYourWrites;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Область чтения собственных записей на время HTTP-запроса:
+ * пока не истек срок из сессии, запрос читает с основной БД; по окончании запроса признак снимается
+ */
+@Component
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        boolean pinned = false;
+        HttpSession session = request.getSession(false);
+        if (session != null && session.getAttribute(ReadYourWrites.SESSION_ATTRIBUTE) instanceof Long until) {
+            if (until > System.currentTimeMillis()) {
+                pinned = true;
+            } else {
+                session.removeAttribute(ReadYourWrites.SESSION_ATTRIBUTE);
+            }
+        }
+        try (ReadYourWrites.Scope ignored = ReadYourWrites.open(pinned)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.cinemastore.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Источники данных с репликами для чтения.
+ * Включается свойством app.datasource.replicas (JDBC URL через запятую);
+ * учетные данные и драйвер берутся из spring.datasource.*.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replicas")
+public class ReplicaDataSourceConfig {
+    
+    private ReplicaRoutingDataSource routingDataSource;
+    
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource,
+                                 DataSourceProperties properties,
+                                 @Value("${app.datasource.replicas}") List<String> replicaUrls,
+                                 @Value("${app.datasource.replica-max-lag-seconds:5}") double maxLagSeconds) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(replicaUrls.get(i).trim())
+                .build();
+            replica.setPoolName("replica-" + i);
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(primaryDataSource.getMaximumPoolSize());
+            replica.setConnectionTimeout(primaryDataSource.getConnectionTimeout());
+            replicas.add(replica);
+        }
+        
+        routingDataSource = new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagSeconds);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+    
+    /**
+     * Периодическая проверка отставания реплик
+     */
+    @Scheduled(fixedDelayString = "${app.datasource.replica-check-interval-ms:5000}")
+    public void monitorReplicas() {
+        if (routingDataSource != null) {
+            routingDataSource.refreshReplicaHealth();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.cinemastore.config;
+
+import com.cinemastore.service.ReadYourWrites;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Маршрутизация соединений: read-only транзакции идут на реплики, остальные - на основную БД.
+ * Реплика с отставанием больше допустимого исключается до следующей проверки;
+ * если здоровых реплик нет, чтение выполняется на основной БД.
+ * Должен использоваться через LazyConnectionDataSourceProxy, чтобы соединение
+ * запрашивалось после установки признака read-only транзакции.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+    
+    static final String PRIMARY = "primary";
+    
+    private static final String LAG_QUERY =
+        "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+        "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+    
+    private final List<DataSource> replicas;
+    private volatile boolean[] healthy;
+    private final double maxLagSeconds;
+    private final AtomicInteger next = new AtomicInteger();
+    
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, double maxLagSeconds) {
+        this.replicas = List.copyOf(replicas);
+        this.maxLagSeconds = maxLagSeconds;
+        
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        // До первой проверки отставания реплики не используются
+        this.healthy = new boolean[replicas.size()];
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+            || ReadYourWrites.isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+        // Round-robin по здоровым репликам
+        boolean[] healthy = this.healthy;
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            int candidate = (start + i) % replicas.size();
+            if (healthy[candidate]) {
+                return candidate;
+            }
+        }
+        return PRIMARY;
+    }
+    
+    /**
+     * Проверка отставания реплик (вызывается по расписанию)
+     */
+    public void refreshReplicaHealth() {
+        boolean[] current = this.healthy;
+        boolean[] updated = new boolean[replicas.size()];
+        for (int i = 0; i < replicas.size(); i++) {
+            boolean ok;
+            try (Connection connection = replicas.get(i).getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                double lag = rs.next() ? rs.getDouble(1) : Double.MAX_VALUE;
+                ok = lag <= maxLagSeconds;
+                if (!ok) {
+                    log.warn("Реплика {} отстает на {} с, чтение переключено на основную БД", i, lag);
+                }
+            } catch (Exception e) {
+                ok = false;
+                log.warn("Реплика {} недоступна: {}", i, e.getMessage());
+            }
+            if (ok && !current[i]) {
+                log.info("Реплика {} снова используется для чтения", i);
+            }
+            updated[i] = ok;
+        }
+        this.healthy = updated;
+    }
+}
@@ -1,11 +1,15 @@
 package com.cinemastore.config;
 
 import com.cinemastore.security.CustomUserDetailsService;
+import com.cinemastore.security.RateLimitFilter;
+import com.cinemastore.security.RateLimiter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,6 +17,8 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 /**
@@ -49,24 +55,29 @@ public class SecurityConfig {
     }
     
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, RateLimiter rateLimiter) throws Exception {
         http
             .authenticationProvider(authenticationProvider())
+            // Ограничение частоты входа и покупки билетов - до проверки пароля и обращения к БД
+            .addFilterBefore(new RateLimitFilter(rateLimiter), UsernamePasswordAuthenticationFilter.class)
             .authorizeHttpRequests(auth -> auth
                 // Публичные ресурсы
                 .requestMatchers("/", "/home", "/about", "/author").permitAll()
                 .requestMatchers("/auth/**", "/register", "/login").permitAll()
                 .requestMatchers("/css/**", "/js/**", "/images/**", "/webjars/**").permitAll()
                 .requestMatchers("/h2-console/**").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
                 
                 // Администратор
                 .requestMatchers("/admin/**").hasRole("ADMIN")
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 
                 // Менеджер
                 .requestMatchers("/manager/**").hasAnyRole("MANAGER", "ADMIN")
                 .requestMatchers("/movies/new", "/movies/edit/**", "/movies/delete/**").hasAnyRole("MANAGER", "ADMIN")
                 .requestMatchers("/genres/new", "/genres/edit/**", "/genres/delete/**").hasAnyRole("MANAGER", "ADMIN")
                 .requestMatchers("/studios/**").hasAnyRole("MANAGER", "ADMIN")
+                .requestMatchers("/pricing/**").hasAnyRole("MANAGER", "ADMIN")
                 
                 // Кассир
                 .requestMatchers("/cashier/**").hasAnyRole("CASHIER", "MANAGER", "ADMIN")
@@ -77,6 +88,9 @@ public class SecurityConfig {
                 .requestMatchers("/genres", "/genres/view/**").authenticated()
                 .requestMatchers("/tickets/my/**").authenticated()
                 
+                // REST API (права на уровне методов контроллеров)
+                .requestMatchers("/api/**").authenticated()
+                
                 // Все остальные запросы требуют аутентификации
                 .anyRequest().authenticated()
             )
@@ -89,6 +103,8 @@ public class SecurityConfig {
                 .passwordParameter("password")
                 .permitAll()
             )
+            // Basic-аутентификация для клиентов REST API (киоски, мобильное приложение)
+            .httpBasic(Customizer.withDefaults())
             .logout(logout -> logout
                 .logoutRequestMatcher(new AntPathRequestMatcher("/logout"))
                 .logoutSuccessUrl("/login?logout=true")
@@ -98,6 +114,8 @@ public class SecurityConfig {
             )
             .exceptionHandling(ex -> ex
                 .accessDeniedPage("/access-denied")
+                .defaultAuthenticationEntryPointFor(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+                                                    new AntPathRequestMatcher("/api/**"))
             )
             // CSRF для простоты отключаем (можно включить и добавить токены в формы)
             .csrf(csrf -> csrf.disable())
@@ -0,0 +1,69 @@
+package com.cinemastore.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Триграммные GIN-индексы (pg_trgm) для поиска по подстроке пользователей и билетов.
+ * Индексы строятся по lower(колонка) - тем же выражениям, что в запросах поиска,
+ * поэтому LIKE '%текст%' обслуживается индексом вместо полного сканирования.
+ * Создаются только на PostgreSQL (ddl-auto такие индексы не создает), CONCURRENTLY -
+ * без блокировки записи в таблицы.
+ */
+@Component
+public class TrigramIndexInitializer {
+    
+    private static final Logger log = LoggerFactory.getLogger(TrigramIndexInitializer.class);
+    
+    private static final List<String> INDEXES = List.of(
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_username_trgm ON users USING gin (lower(username) gin_trgm_ops)",
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_first_name_trgm ON users USING gin (lower(first_name) gin_trgm_ops)",
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_last_name_trgm ON users USING gin (lower(last_name) gin_trgm_ops)",
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops)",
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tickets_number_trgm ON tickets USING gin (lower(ticket_number) gin_trgm_ops)",
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_tickets_archive_number_trgm ON tickets_archive USING gin (lower(ticket_number) gin_trgm_ops)"
+    );
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    
+    @Autowired
+    public TrigramIndexInitializer(JdbcTemplate jdbcTemplate,
+                                   @Value("${app.search.trigram-indexes:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void createIndexes() {
+        if (!enabled || !isPostgres()) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            for (String ddl : INDEXES) {
+                jdbcTemplate.execute(ddl);
+            }
+            log.info("Триграммные индексы поиска проверены: {}", INDEXES.size());
+        } catch (DataAccessException e) {
+            // Например, нет прав на CREATE EXTENSION: поиск работает, но без индексов
+            log.warn("Не удалось создать триграммные индексы поиска: {}", e.getMostSpecificCause().getMessage());
+        }
+    }
+    
+    private boolean isPostgres() {
+        String product = jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        return "PostgreSQL".equalsIgnoreCase(product);
+    }
+}
@@ -0,0 +1,28 @@
+package com.cinemastore.config;
+
+import com.cinemastore.security.WaitingRoomInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Конфигурация Spring MVC
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    
+    private final WaitingRoomInterceptor waitingRoomInterceptor;
+    
+    @Autowired
+    public WebConfig(WaitingRoomInterceptor waitingRoomInterceptor) {
+        this.waitingRoomInterceptor = waitingRoomInterceptor;
+    }
+    
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Очередь ожидания перед покупкой билетов
+        registry.addInterceptor(waitingRoomInterceptor)
+            .addPathPatterns("/tickets/new", "/tickets/new/group");
+    }
+}
@@ -1,13 +1,13 @@
 package com.cinemastore.controller;
 
+import com.cinemastore.dto.UserRow;
 import com.cinemastore.entity.Role;
 import com.cinemastore.entity.User;
+import com.cinemastore.security.WaitingRoom;
 import com.cinemastore.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -23,10 +23,14 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 public class AdminController {
     
     private final UserService userService;
+    private final WaitingRoom waitingRoom;
+    private final ListQueryGuard listQueryGuard;
     
     @Autowired
-    public AdminController(UserService userService) {
+    public AdminController(UserService userService, WaitingRoom waitingRoom, ListQueryGuard listQueryGuard) {
         this.userService = userService;
+        this.waitingRoom = waitingRoom;
+        this.listQueryGuard = listQueryGuard;
     }
     
     /**
@@ -34,14 +38,25 @@ public class AdminController {
      */
     @GetMapping
     public String adminPanel(Model model) {
-        model.addAttribute("totalUsers", userService.findAll().size());
-        model.addAttribute("customerCount", userService.countByRole(Role.CUSTOMER));
-        model.addAttribute("cashierCount", userService.countByRole(Role.CASHIER));
-        model.addAttribute("managerCount", userService.countByRole(Role.MANAGER));
-        model.addAttribute("adminCount", userService.countByRole(Role.ADMIN));
+        model.addAllAttributes(userService.getStatistics().toModel());
+        model.addAttribute("waitingRoomEnabled", waitingRoom.isEnabled());
+        model.addAttribute("waitingRoomRate", waitingRoom.getAdmissionsPerSecond());
+        model.addAttribute("waitingRoomCount", waitingRoom.waitingCount());
         return "admin/panel";
     }
     
+    /**
+     * Включение/выключение очереди на покупку билетов
+     */
+    @PostMapping("/waiting-room/toggle")
+    public String toggleWaitingRoom(RedirectAttributes redirectAttributes) {
+        boolean enabled = !waitingRoom.isEnabled();
+        waitingRoom.setEnabled(enabled);
+        redirectAttributes.addFlashAttribute("success",
+            enabled ? "Очередь на покупку билетов включена" : "Очередь на покупку билетов выключена");
+        return "redirect:/admin";
+    }
+    
     /**
      * Список пользователей
      */
@@ -55,12 +70,9 @@ public class AdminController {
             @RequestParam(defaultValue = "asc") String sortDir,
             Model model) {
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-            ? Sort.by(sortBy).descending() 
-            : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = listQueryGuard.pageable(ListQueryGuard.Listing.USERS, page, size, sortBy, sortDir);
         
-        Page<User> users;
+        Page<UserRow> users;
         if (role != null && !role.isEmpty()) {
             users = userService.findByRole(Role.valueOf(role), pageable);
         } else if (search != null && !search.trim().isEmpty()) {
@@ -73,7 +85,7 @@ public class AdminController {
         model.addAttribute("roles", Role.values());
         model.addAttribute("currentSearch", search);
         model.addAttribute("currentRole", role);
-        model.addAttribute("currentSortBy", sortBy);
+        model.addAttribute("currentSortBy", ListQueryGuard.sortProperty(pageable));
         model.addAttribute("currentSortDir", sortDir);
         
         return "admin/users";
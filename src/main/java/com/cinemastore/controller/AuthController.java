@@ -3,6 +3,7 @@ package com.cinemastore.controller;
 import com.cinemastore.dto.RegistrationDto;
 import com.cinemastore.entity.Role;
 import com.cinemastore.entity.User;
+import com.cinemastore.service.DuplicateUserException;
 import com.cinemastore.service.UserService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -66,18 +67,7 @@ public class AuthController {
             return "auth/register";
         }
         
-        // Проверка уникальности username
-        if (userService.existsByUsername(dto.getUsername())) {
-            model.addAttribute("usernameError", "Пользователь с таким именем уже существует");
-            return "auth/register";
-        }
-        
-        // Проверка уникальности email
-        if (userService.existsByEmail(dto.getEmail())) {
-            model.addAttribute("emailError", "Пользователь с таким email уже существует");
-            return "auth/register";
-        }
-        
+        // Уникальность имени и email проверяется при сохранении (ограничения БД)
         try {
             // Создаем пользователя из DTO
             User user = new User();
@@ -93,6 +83,10 @@ public class AuthController {
             userService.registerUser(user);
             redirectAttributes.addFlashAttribute("success", "Регистрация успешна! Теперь вы можете войти в систему.");
             return "redirect:/login";
+        } catch (DuplicateUserException e) {
+            model.addAttribute(DuplicateUserException.USERNAME.equals(e.getField()) ? "usernameError" : "emailError",
+                               e.getMessage());
+            return "auth/register";
         } catch (Exception e) {
             model.addAttribute("error", "Ошибка при регистрации: " + e.getMessage());
             return "auth/register";
@@ -1,5 +1,6 @@
 package com.cinemastore.controller;
 
+import com.cinemastore.dto.UserStatistics;
 import com.cinemastore.entity.TicketStatus;
 import com.cinemastore.entity.Role;
 import com.cinemastore.security.CustomUserDetails;
@@ -9,8 +10,13 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Контроллер для главных страниц и дашборда
@@ -23,18 +29,27 @@ public class DashboardController {
     private final TicketService ticketService;
     private final UserService userService;
     private final StudioService studioService;
+    private final CatalogCounts catalogCounts;
+    private final DashboardComposer dashboardComposer;
+    private final OccupancyProjection occupancyProjection;
     
     @Autowired
     public DashboardController(MovieService movieService,
                                GenreService genreService,
                                TicketService ticketService,
                                UserService userService,
-                               StudioService studioService) {
+                               StudioService studioService,
+                               CatalogCounts catalogCounts,
+                               DashboardComposer dashboardComposer,
+                               OccupancyProjection occupancyProjection) {
         this.movieService = movieService;
         this.genreService = genreService;
         this.ticketService = ticketService;
         this.userService = userService;
         this.studioService = studioService;
+        this.catalogCounts = catalogCounts;
+        this.dashboardComposer = dashboardComposer;
+        this.occupancyProjection = occupancyProjection;
     }
     
     /**
@@ -84,82 +99,102 @@ public class DashboardController {
     }
     
     private String setupAdminDashboard(Model model) {
-        // Статистика для администратора
-        model.addAttribute("totalUsers", userService.findAll().size());
-        model.addAttribute("totalMovies", movieService.count());
-        model.addAttribute("totalGenres", genreService.count());
-        model.addAttribute("totalStudios", studioService.count());
-        model.addAttribute("totalTickets", ticketService.count());
-        
-        // Количество пользователей по ролям
-        model.addAttribute("customerCount", userService.countByRole(Role.CUSTOMER));
-        model.addAttribute("cashierCount", userService.countByRole(Role.CASHIER));
-        model.addAttribute("managerCount", userService.countByRole(Role.MANAGER));
-        model.addAttribute("adminCount", userService.countByRole(Role.ADMIN));
-        
-        // Билеты по статусам
-        model.addAttribute("reservedTickets", ticketService.countByStatus(TicketStatus.RESERVED));
-        model.addAttribute("usedTickets", ticketService.countByStatus(TicketStatus.USED));
-        
-        // Последние билеты
-        model.addAttribute("recentTickets", ticketService.findRecentTickets(5));
+        Map<String, Object> stats = dashboardComposer.compose()
+            // Статистика для администратора
+            .add("userStatistics", userService::getStatistics, UserStatistics.EMPTY)
+            .add("totalMovies", movieService::count, 0L)
+            .add("totalGenres", genreService::count, 0L)
+            .add("totalStudios", studioService::count, 0L)
+            .add("totalTickets", ticketService::count, 0L)
+            // Билеты по статусам
+            .add("reservedTickets", () -> ticketService.countByStatus(TicketStatus.RESERVED), 0L)
+            .add("usedTickets", () -> ticketService.countByStatus(TicketStatus.USED), 0L)
+            // Последние билеты
+            .add("recentTickets", () -> ticketService.findRecentTickets(5), List.of())
+            .join();
+        model.addAllAttributes(stats);
+        // Общее количество и разбивка по ролям
+        model.addAllAttributes(((UserStatistics) stats.get("userStatistics")).toModel());
         
         return "dashboard/admin";
     }
     
     private String setupManagerDashboard(Model model) {
-        // Статистика для менеджера
-        model.addAttribute("totalMovies", movieService.count());
-        model.addAttribute("totalGenres", genreService.count());
-        model.addAttribute("totalStudios", studioService.count());
-        model.addAttribute("totalTickets", ticketService.count());
-        
-        // Доступные фильмы
-        model.addAttribute("availableMovies", movieService.countAvailable());
-        
-        // Статистика билетов
-        model.addAttribute("reservedTickets", ticketService.countByStatus(TicketStatus.RESERVED));
-        model.addAttribute("paidTickets", ticketService.countByStatus(TicketStatus.PAID));
-        
-        // Выручка за текущий месяц
         LocalDateTime startOfMonth = LocalDateTime.now().withDayOfMonth(1).withHour(0).withMinute(0);
-        model.addAttribute("monthlyRevenue", ticketService.calculateRevenue(startOfMonth, LocalDateTime.now()));
         
-        // Последние билеты
-        model.addAttribute("recentTickets", ticketService.findRecentTickets(10));
+        Map<String, Object> stats = dashboardComposer.compose()
+            // Статистика для менеджера
+            .add("totalMovies", movieService::count, 0L)
+            .add("totalGenres", genreService::count, 0L)
+            .add("totalStudios", studioService::count, 0L)
+            .add("totalTickets", ticketService::count, 0L)
+            // Доступные и недоступные фильмы
+            .add("availableMovies", movieService::countAvailable, 0L)
+            .add("unavailableMovies", movieService::findUnavailablePreview, List.of())
+            // Статистика билетов
+            .add("reservedTickets", () -> ticketService.countByStatus(TicketStatus.RESERVED), 0L)
+            .add("paidTickets", () -> ticketService.countByStatus(TicketStatus.PAID), 0L)
+            // Выручка за текущий месяц
+            .add("monthlyRevenue", () -> ticketService.calculateRevenue(startOfMonth, LocalDateTime.now()),
+                 BigDecimal.ZERO)
+            // Последние билеты
+            .add("recentTickets", () -> ticketService.findRecentTickets(10), List.of())
+            // Заполняемость ближайших сеансов (из проекции, без группировки билетов)
+            .add("upcomingSessions", () -> occupancyProjection.findUpcoming(10), List.of())
+            .join();
+        model.addAllAttributes(stats);
+        model.addAttribute("upcomingSessionCount", occupancyProjection.countUpcoming());
         
         return "dashboard/manager";
     }
     
+    /**
+     * Перестроение проекции заполняемости сеансов
+     */
+    @PostMapping("/manager/occupancy/rebuild")
+    public String rebuildOccupancy(RedirectAttributes redirectAttributes) {
+        try {
+            int sessions = occupancyProjection.rebuild();
+            redirectAttributes.addFlashAttribute("success", "Заполняемость пересчитана, сеансов: " + sessions);
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/dashboard";
+    }
+    
     private String setupCashierDashboard(Model model) {
-        // Билеты требующие обработки
-        model.addAttribute("ticketsToProcess", ticketService.findTicketsRequiringProcessing());
-        
-        // Статистика билетов
-        model.addAttribute("reservedTickets", ticketService.countByStatus(TicketStatus.RESERVED));
-        model.addAttribute("paidTickets", ticketService.countByStatus(TicketStatus.PAID));
-        model.addAttribute("activeTickets", ticketService.countByStatus(TicketStatus.ACTIVE));
-        model.addAttribute("usedTickets", ticketService.countByStatus(TicketStatus.USED));
-        
-        // Выручка за сегодня
         LocalDateTime startOfDay = LocalDateTime.now().withHour(0).withMinute(0).withSecond(0);
-        model.addAttribute("todayRevenue", ticketService.calculateRevenue(startOfDay, LocalDateTime.now()));
         
-        // Последние билеты
-        model.addAttribute("recentTickets", ticketService.findRecentTickets(10));
+        Map<String, Object> stats = dashboardComposer.compose()
+            // Билеты требующие обработки
+            .add("ticketsToProcess", ticketService::findTicketsRequiringProcessing, List.of())
+            // Статистика билетов
+            .add("reservedTickets", () -> ticketService.countByStatus(TicketStatus.RESERVED), 0L)
+            .add("paidTickets", () -> ticketService.countByStatus(TicketStatus.PAID), 0L)
+            .add("activeTickets", () -> ticketService.countByStatus(TicketStatus.ACTIVE), 0L)
+            .add("usedTickets", () -> ticketService.countByStatus(TicketStatus.USED), 0L)
+            // Выручка за сегодня
+            .add("todayRevenue", () -> ticketService.calculateRevenue(startOfDay, LocalDateTime.now()),
+                 BigDecimal.ZERO)
+            // Последние билеты
+            .add("recentTickets", () -> ticketService.findRecentTickets(10), List.of())
+            .join();
+        model.addAllAttributes(stats);
         
         return "dashboard/cashier";
     }
     
     private String setupCustomerDashboard(CustomUserDetails userDetails, Model model) {
-        // Жанры фильмов
-        model.addAttribute("genres", genreService.findAll());
-        
-        // Популярные фильмы (просто последние добавленные)
-        model.addAttribute("featuredMovies", movieService.findAll().stream().limit(8).toList());
-        
-        // Билеты пользователя (последние)
-        model.addAttribute("myTickets", ticketService.findRecentTickets(5));
+        Map<String, Object> stats = dashboardComposer.compose()
+            // Популярные фильмы (просто первые по названию)
+            .add("featuredMovies", movieService::findFeatured, List.of())
+            // Билеты пользователя (последние)
+            .add("myTickets", () -> ticketService.findRecentTickets(userDetails.getUser(), 5), List.of())
+            // Жанры и количество фильмов в них (из кэша)
+            .add("genres", genreService::findAll, List.of())
+            .add("movieCounts", catalogCounts::moviesByGenre, Map.of())
+            .join();
+        model.addAllAttributes(stats);
         
         return "dashboard/customer";
     }
@@ -1,12 +1,12 @@
 package com.cinemastore.controller;
 
 import com.cinemastore.entity.Genre;
+import com.cinemastore.service.CatalogCounts;
 import com.cinemastore.service.GenreService;
 import com.cinemastore.service.MovieService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,11 +25,16 @@ public class GenreController {
     
     private final GenreService genreService;
     private final MovieService movieService;
+    private final CatalogCounts catalogCounts;
+    private final ListQueryGuard listQueryGuard;
     
     @Autowired
-    public GenreController(GenreService genreService, MovieService movieService) {
+    public GenreController(GenreService genreService, MovieService movieService, CatalogCounts catalogCounts,
+                           ListQueryGuard listQueryGuard) {
         this.genreService = genreService;
         this.movieService = movieService;
+        this.catalogCounts = catalogCounts;
+        this.listQueryGuard = listQueryGuard;
     }
     
     /**
@@ -44,10 +49,7 @@ public class GenreController {
             @RequestParam(defaultValue = "asc") String sortDir,
             Model model) {
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-            ? Sort.by(sortBy).descending() 
-            : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = listQueryGuard.pageable(ListQueryGuard.Listing.GENRES, page, size, sortBy, sortDir);
         
         Page<Genre> genres;
         if (search != null && !search.trim().isEmpty()) {
@@ -57,8 +59,9 @@ public class GenreController {
         }
         
         model.addAttribute("genres", genres);
+        model.addAttribute("movieCounts", catalogCounts.moviesByGenre());
         model.addAttribute("currentSearch", search);
-        model.addAttribute("currentSortBy", sortBy);
+        model.addAttribute("currentSortBy", ListQueryGuard.sortProperty(pageable));
         model.addAttribute("currentSortDir", sortDir);
         
         return "genres/list";
@@ -75,10 +78,10 @@ public class GenreController {
         Genre genre = genreService.findById(id)
             .orElseThrow(() -> new RuntimeException("Жанр не найден"));
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("name").ascending());
+        Pageable pageable = listQueryGuard.pageable(ListQueryGuard.Listing.MOVIES, page, size, Sort.by("name").ascending());
         
         model.addAttribute("genre", genre);
-        model.addAttribute("movies", movieService.findByGenre(genre, pageable));
+        model.addAttribute("movies", movieService.findSummariesByGenre(genre.getId(), pageable));
         
         return "genres/view";
     }
@@ -159,8 +162,10 @@ public class GenreController {
     @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
     public String deleteGenre(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         try {
-            genreService.deleteGenre(id);
-            redirectAttributes.addFlashAttribute("success", "Жанр успешно удален");
+            long detaching = genreService.deleteGenre(id);
+            redirectAttributes.addFlashAttribute("success", detaching == 0
+                ? "Жанр успешно удален"
+                : "Жанр будет удален после отвязки фильмов (" + detaching + ") в фоне");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
         }
@@ -0,0 +1,108 @@
+package com.cinemastore.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Ограничения параметров списков: сортировка только по полям с индексом,
+ * размер страницы не больше max-page-size. Недопустимые значения заменяются
+ * безопасными (сортировка по умолчанию, предельный размер) и учитываются в метрике
+ * app.query.rejected{listing, reason}.
+ */
+@Component
+public class ListQueryGuard {
+    
+    /**
+     * Списки и поля, по которым разрешена сортировка (каждое поле покрыто индексом)
+     */
+    public enum Listing {
+        MOVIES("name", "id", "name", "price", "duration", "releaseDate", "rating"),
+        TICKETS("createdAt", "id", "createdAt", "price", "ticketNumber"),
+        USERS("username", "id", "username", "email", "createdAt"),
+        GENRES("name", "id", "name"),
+        STUDIOS("companyName", "id", "companyName");
+        
+        private final String defaultSort;
+        private final Set<String> sortable;
+        
+        Listing(String defaultSort, String... sortable) {
+            this.defaultSort = defaultSort;
+            this.sortable = Set.of(sortable);
+        }
+        
+        public boolean isSortable(String property) {
+            return sortable.contains(property);
+        }
+    }
+    
+    private final MeterRegistry meterRegistry;
+    private final int maxPageSize;
+    
+    @Autowired
+    public ListQueryGuard(MeterRegistry meterRegistry,
+                          @Value("${app.query.max-page-size:100}") int maxPageSize) {
+        this.meterRegistry = meterRegistry;
+        this.maxPageSize = maxPageSize;
+    }
+    
+    /**
+     * Страница с сортировкой, выбранной пользователем
+     */
+    public Pageable pageable(Listing listing, int page, int size, String sortBy, String sortDir) {
+        String property = sortBy;
+        if (!listing.isSortable(property)) {
+            reject(listing, "sort");
+            property = listing.defaultSort;
+        }
+        Sort sort = "desc".equalsIgnoreCase(sortDir)
+            ? Sort.by(property).descending()
+            : Sort.by(property).ascending();
+        return pageable(listing, page, size, sort);
+    }
+    
+    /**
+     * Страница с фиксированной сортировкой (ограничивается только размер)
+     */
+    public Pageable pageable(Listing listing, int page, int size, Sort sort) {
+        int safeSize = size;
+        if (size < 1 || size > maxPageSize) {
+            reject(listing, "size");
+            safeSize = size < 1 ? 10 : maxPageSize;
+        }
+        return PageRequest.of(Math.max(page, 0), safeSize, sort);
+    }
+    
+    /**
+     * Фактическое поле сортировки (для сохранения состояния формы)
+     */
+    public static String sortProperty(Pageable pageable) {
+        return pageable.getSort().stream().findFirst().map(Sort.Order::getProperty).orElse(null);
+    }
+    
+    /**
+     * Запрос прерван по таймауту (endpoint - контроллер и метод)
+     */
+    public void recordTimeout(String endpoint) {
+        counter(endpoint, "timeout").increment();
+    }
+    
+    private void reject(Listing listing, String reason) {
+        counter(listing.name().toLowerCase(), reason).increment();
+    }
+    
+    private Counter counter(String listing, String reason) {
+        return Counter.builder("app.query.rejected")
+            .description("Отклоненные или прерванные параметры запросов списков")
+            .tag("listing", listing)
+            .tag("reason", reason)
+            .register(meterRegistry);
+    }
+}
@@ -1,15 +1,14 @@
 package com.cinemastore.controller;
 
+import com.cinemastore.dto.BulkMovieUpdate;
+import com.cinemastore.dto.MovieSearchResult;
 import com.cinemastore.entity.Movie;
 import com.cinemastore.service.GenreService;
 import com.cinemastore.service.MovieService;
 import com.cinemastore.service.StudioService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -29,14 +28,17 @@ public class MovieController {
     private final MovieService movieService;
     private final GenreService genreService;
     private final StudioService studioService;
+    private final ListQueryGuard listQueryGuard;
     
     @Autowired
     public MovieController(MovieService movieService,
                           GenreService genreService,
-                          StudioService studioService) {
+                          StudioService studioService,
+                          ListQueryGuard listQueryGuard) {
         this.movieService = movieService;
         this.genreService = genreService;
         this.studioService = studioService;
+        this.listQueryGuard = listQueryGuard;
     }
     
     /**
@@ -56,23 +58,14 @@ public class MovieController {
             @RequestParam(defaultValue = "asc") String sortDir,
             Model model) {
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-            ? Sort.by(sortBy).descending() 
-            : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = listQueryGuard.pageable(ListQueryGuard.Listing.MOVIES, page, size, sortBy, sortDir);
         
-        Page<Movie> movies;
+        // Фильтры, сортировка, страница и фасеты - по индексу каталога (без фильтров тоже)
+        MovieSearchResult result = movieService.findWithFilters(search, genreId, studioId,
+                                                                minPrice, maxPrice, available, pageable);
         
-        // Если есть фильтры - используем комплексный поиск
-        if (search != null || genreId != null || studioId != null || 
-            minPrice != null || maxPrice != null || available != null) {
-            movies = movieService.findWithFilters(search, genreId, studioId, 
-                                                  minPrice, maxPrice, available, pageable);
-        } else {
-            movies = movieService.findAll(pageable);
-        }
-        
-        model.addAttribute("movies", movies);
+        model.addAttribute("movies", result.movies());
+        model.addAttribute("facets", result.facets());
         model.addAttribute("genres", genreService.findAll());
         model.addAttribute("studios", studioService.findAllActive());
         
@@ -83,7 +76,7 @@ public class MovieController {
         model.addAttribute("currentMinPrice", minPrice);
         model.addAttribute("currentMaxPrice", maxPrice);
         model.addAttribute("currentAvailable", available);
-        model.addAttribute("currentSortBy", sortBy);
+        model.addAttribute("currentSortBy", ListQueryGuard.sortProperty(pageable));
         model.addAttribute("currentSortDir", sortDir);
         
         return "movies/list";
@@ -229,5 +222,55 @@ public class MovieController {
         }
         return "redirect:/movies";
     }
+    
+    /**
+     * Форма массовых операций над фильмами
+     */
+    @GetMapping("/bulk")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public String showBulkForm(Model model) {
+        model.addAttribute("update", new BulkMovieUpdate(null, null, BulkMovieUpdate.Action.REPRICE,
+                                                         null, null, null, null));
+        addBulkFormData(model);
+        return "movies/bulk";
+    }
+    
+    /**
+     * Предпросмотр массовой операции: количество затрагиваемых фильмов
+     */
+    @PostMapping("/bulk/preview")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public String previewBulkUpdate(@ModelAttribute("update") BulkMovieUpdate update, Model model) {
+        try {
+            model.addAttribute("affected", movieService.previewBulkUpdate(update));
+        } catch (Exception e) {
+            model.addAttribute("error", e.getMessage());
+        }
+        addBulkFormData(model);
+        return "movies/bulk";
+    }
+    
+    /**
+     * Применение массовой операции
+     */
+    @PostMapping("/bulk/apply")
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public String applyBulkUpdate(@ModelAttribute("update") BulkMovieUpdate update,
+                                  RedirectAttributes redirectAttributes) {
+        try {
+            int updated = movieService.applyBulkUpdate(update);
+            redirectAttributes.addFlashAttribute("success", "Изменено фильмов: " + updated);
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+            return "redirect:/movies/bulk";
+        }
+        return "redirect:/movies";
+    }
+    
+    private void addBulkFormData(Model model) {
+        model.addAttribute("genres", genreService.findAll());
+        model.addAttribute("studios", studioService.findAllActive());
+        model.addAttribute("actions", BulkMovieUpdate.Action.values());
+    }
 }
 
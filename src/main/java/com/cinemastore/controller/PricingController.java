@@ -0,0 +1,145 @@
+package com.cinemastore.controller;
+
+import com.cinemastore.entity.PricingRule;
+import com.cinemastore.entity.PricingRuleType;
+import com.cinemastore.service.PricingRuleService;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import java.time.DayOfWeek;
+
+/**
+ * Контроллер для управления правилами ценообразования
+ */
+@Controller
+@RequestMapping("/pricing")
+@PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+public class PricingController {
+    
+    private final PricingRuleService pricingRuleService;
+    
+    @Autowired
+    public PricingController(PricingRuleService pricingRuleService) {
+        this.pricingRuleService = pricingRuleService;
+    }
+    
+    /**
+     * Список правил
+     */
+    @GetMapping
+    public String listRules(Model model) {
+        model.addAttribute("rules", pricingRuleService.findAll());
+        return "pricing/list";
+    }
+    
+    /**
+     * Форма создания правила
+     */
+    @GetMapping("/new")
+    public String showCreateForm(Model model) {
+        model.addAttribute("rule", new PricingRule());
+        addFormOptions(model);
+        return "pricing/form";
+    }
+    
+    /**
+     * Создание правила
+     */
+    @PostMapping("/new")
+    public String createRule(@Valid @ModelAttribute("rule") PricingRule rule,
+                             BindingResult result,
+                             RedirectAttributes redirectAttributes,
+                             Model model) {
+        if (result.hasErrors()) {
+            addFormOptions(model);
+            return "pricing/form";
+        }
+        
+        try {
+            pricingRuleService.createRule(rule);
+            redirectAttributes.addFlashAttribute("success", "Правило успешно создано");
+            return "redirect:/pricing";
+        } catch (Exception e) {
+            model.addAttribute("error", e.getMessage());
+            addFormOptions(model);
+            return "pricing/form";
+        }
+    }
+    
+    /**
+     * Форма редактирования правила
+     */
+    @GetMapping("/edit/{id}")
+    public String showEditForm(@PathVariable Long id, Model model) {
+        PricingRule rule = pricingRuleService.findById(id)
+            .orElseThrow(() -> new RuntimeException("Правило не найдено"));
+        model.addAttribute("rule", rule);
+        addFormOptions(model);
+        return "pricing/form";
+    }
+    
+    /**
+     * Обновление правила
+     */
+    @PostMapping("/edit/{id}")
+    public String updateRule(@PathVariable Long id,
+                             @Valid @ModelAttribute("rule") PricingRule rule,
+                             BindingResult result,
+                             RedirectAttributes redirectAttributes,
+                             Model model) {
+        if (result.hasErrors()) {
+            addFormOptions(model);
+            return "pricing/form";
+        }
+        
+        try {
+            pricingRuleService.updateRule(id, rule);
+            redirectAttributes.addFlashAttribute("success", "Правило успешно обновлено");
+            return "redirect:/pricing";
+        } catch (Exception e) {
+            model.addAttribute("error", e.getMessage());
+            addFormOptions(model);
+            return "pricing/form";
+        }
+    }
+    
+    /**
+     * Включение/выключение правила
+     */
+    @PostMapping("/toggle/{id}")
+    public String toggleRule(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        try {
+            PricingRule rule = pricingRuleService.toggleActive(id);
+            redirectAttributes.addFlashAttribute("success",
+                rule.isActive() ? "Правило включено" : "Правило выключено");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/pricing";
+    }
+    
+    /**
+     * Удаление правила
+     */
+    @PostMapping("/delete/{id}")
+    public String deleteRule(@PathVariable Long id, RedirectAttributes redirectAttributes) {
+        try {
+            pricingRuleService.deleteRule(id);
+            redirectAttributes.addFlashAttribute("success", "Правило успешно удалено");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/pricing";
+    }
+    
+    private void addFormOptions(Model model) {
+        model.addAttribute("ruleTypes", PricingRuleType.values());
+        model.addAttribute("daysOfWeek", DayOfWeek.values());
+    }
+}
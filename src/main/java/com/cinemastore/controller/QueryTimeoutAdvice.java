@@ -0,0 +1,33 @@
+package com.cinemastore.controller;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.ModelAndView;
+
+/**
+ * Ответ на запрос списка, прерванный по таймауту транзакции (оператор отменен на стороне БД)
+ */
+@ControllerAdvice(assignableTypes = {MovieController.class, TicketController.class, AdminController.class,
+                                     GenreController.class, StudioController.class})
+public class QueryTimeoutAdvice {
+    
+    private final ListQueryGuard listQueryGuard;
+    
+    @Autowired
+    public QueryTimeoutAdvice(ListQueryGuard listQueryGuard) {
+        this.listQueryGuard = listQueryGuard;
+    }
+    
+    @ExceptionHandler({QueryTimeoutException.class, TransactionTimedOutException.class})
+    public ModelAndView handleTimeout(HandlerMethod handler) {
+        listQueryGuard.recordTimeout(handler.getBeanType().getSimpleName() + "." + handler.getMethod().getName());
+        ModelAndView view = new ModelAndView("error/query-timeout");
+        view.setStatus(HttpStatus.SERVICE_UNAVAILABLE);
+        return view;
+    }
+}
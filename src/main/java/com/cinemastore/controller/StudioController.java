@@ -1,11 +1,12 @@
 package com.cinemastore.controller;
 
 import com.cinemastore.entity.Studio;
+import com.cinemastore.service.CatalogCounts;
+import com.cinemastore.service.MovieService;
 import com.cinemastore.service.StudioService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,10 +25,17 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 public class StudioController {
     
     private final StudioService studioService;
+    private final MovieService movieService;
+    private final CatalogCounts catalogCounts;
+    private final ListQueryGuard listQueryGuard;
     
     @Autowired
-    public StudioController(StudioService studioService) {
+    public StudioController(StudioService studioService, MovieService movieService, CatalogCounts catalogCounts,
+                            ListQueryGuard listQueryGuard) {
         this.studioService = studioService;
+        this.movieService = movieService;
+        this.catalogCounts = catalogCounts;
+        this.listQueryGuard = listQueryGuard;
     }
     
     /**
@@ -42,10 +50,7 @@ public class StudioController {
             @RequestParam(defaultValue = "asc") String sortDir,
             Model model) {
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-            ? Sort.by(sortBy).descending() 
-            : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = listQueryGuard.pageable(ListQueryGuard.Listing.STUDIOS, page, size, sortBy, sortDir);
         
         Page<Studio> studios;
         if (search != null && !search.trim().isEmpty()) {
@@ -55,21 +60,29 @@ public class StudioController {
         }
         
         model.addAttribute("studios", studios);
+        model.addAttribute("movieCounts", catalogCounts.moviesByStudio());
         model.addAttribute("currentSearch", search);
-        model.addAttribute("currentSortBy", sortBy);
+        model.addAttribute("currentSortBy", ListQueryGuard.sortProperty(pageable));
         model.addAttribute("currentSortDir", sortDir);
         
         return "studios/list";
     }
     
     /**
-     * Просмотр студии
+     * Просмотр студии с фильмами
      */
     @GetMapping("/view/{id}")
-    public String viewStudio(@PathVariable Long id, Model model) {
+    public String viewStudio(@PathVariable Long id,
+                             @RequestParam(defaultValue = "0") int page,
+                             @RequestParam(defaultValue = "12") int size,
+                             Model model) {
         Studio studio = studioService.findById(id)
             .orElseThrow(() -> new RuntimeException("Студия не найдена"));
+        
+        Pageable pageable = listQueryGuard.pageable(ListQueryGuard.Listing.MOVIES, page, size, Sort.by("name").ascending());
+        
         model.addAttribute("studio", studio);
+        model.addAttribute("movies", movieService.findSummariesByStudio(studio.getId(), pageable));
         return "studios/view";
     }
     
@@ -144,8 +157,10 @@ public class StudioController {
     @PostMapping("/delete/{id}")
     public String deleteStudio(@PathVariable Long id, RedirectAttributes redirectAttributes) {
         try {
-            studioService.deleteStudio(id);
-            redirectAttributes.addFlashAttribute("success", "Студия успешно удалена");
+            long detaching = studioService.deleteStudio(id);
+            redirectAttributes.addFlashAttribute("success", detaching == 0
+                ? "Студия успешно удалена"
+                : "Студия скрыта и будет удалена после отвязки фильмов (" + detaching + ") в фоне");
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("error", e.getMessage());
         }
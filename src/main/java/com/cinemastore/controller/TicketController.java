@@ -1,5 +1,6 @@
 package com.cinemastore.controller;
 
+import com.cinemastore.dto.TicketSummary;
 import com.cinemastore.entity.*;
 import com.cinemastore.security.CustomUserDetails;
 import com.cinemastore.service.MovieService;
@@ -18,6 +19,8 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Контроллер для работы с билетами
@@ -29,14 +32,17 @@ public class TicketController {
     private final TicketService ticketService;
     private final MovieService movieService;
     private final UserService userService;
+    private final ListQueryGuard listQueryGuard;
     
     @Autowired
     public TicketController(TicketService ticketService, 
                             MovieService movieService,
-                            UserService userService) {
+                            UserService userService,
+                            ListQueryGuard listQueryGuard) {
         this.ticketService = ticketService;
         this.movieService = movieService;
         this.userService = userService;
+        this.listQueryGuard = listQueryGuard;
     }
     
     /**
@@ -53,12 +59,9 @@ public class TicketController {
             @RequestParam(defaultValue = "desc") String sortDir,
             Model model) {
         
-        Sort sort = sortDir.equalsIgnoreCase("desc") 
-            ? Sort.by(sortBy).descending() 
-            : Sort.by(sortBy).ascending();
-        Pageable pageable = PageRequest.of(page, size, sort);
+        Pageable pageable = listQueryGuard.pageable(ListQueryGuard.Listing.TICKETS, page, size, sortBy, sortDir);
         
-        Page<Ticket> tickets;
+        Page<TicketSummary> tickets;
         if (status != null && !status.isEmpty()) {
             tickets = ticketService.findByStatus(TicketStatus.valueOf(status), pageable);
         } else if (search != null && !search.trim().isEmpty()) {
@@ -71,7 +74,7 @@ public class TicketController {
         model.addAttribute("statuses", TicketStatus.values());
         model.addAttribute("currentSearch", search);
         model.addAttribute("currentStatus", status);
-        model.addAttribute("currentSortBy", sortBy);
+        model.addAttribute("currentSortBy", ListQueryGuard.sortProperty(pageable));
         model.addAttribute("currentSortDir", sortDir);
         
         return "tickets/list";
@@ -88,8 +91,8 @@ public class TicketController {
             Model model) {
         
         User customer = userDetails.getUser();
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<Ticket> tickets = ticketService.findByCustomer(customer, pageable);
+        Pageable pageable = listQueryGuard.pageable(ListQueryGuard.Listing.TICKETS, page, size, Sort.by("createdAt").descending());
+        Page<TicketSummary> tickets = ticketService.findByCustomer(customer, pageable);
         
         model.addAttribute("tickets", tickets);
         
@@ -103,7 +106,7 @@ public class TicketController {
     public String viewTicket(@PathVariable Long id, 
                            @AuthenticationPrincipal CustomUserDetails userDetails,
                            Model model) {
-        Ticket ticket = ticketService.findById(id)
+        TicketRecord ticket = ticketService.findRecordById(id)
             .orElseThrow(() -> new RuntimeException("Билет не найден"));
         
         // Проверка доступа - зритель видит только свои билеты
@@ -138,13 +141,15 @@ public class TicketController {
                               @RequestParam Long movieId,
                               @RequestParam String showtime,
                               @RequestParam(required = false) String seat,
+                              @RequestParam(required = false) String promoCode,
                               RedirectAttributes redirectAttributes) {
         try {
             Movie movie = movieService.findById(movieId)
                 .orElseThrow(() -> new RuntimeException("Фильм не найден"));
             
             LocalDateTime showtimeDateTime = LocalDateTime.parse(showtime);
-            Ticket ticket = ticketService.createTicket(userDetails.getUser(), movie, showtimeDateTime, seat);
+            Ticket ticket = ticketService.createTicket(userDetails.getUser(), movie, showtimeDateTime, seat,
+                                                        promoCode);
             
             redirectAttributes.addFlashAttribute("success", "Билет успешно создан");
             return "redirect:/tickets/view/" + ticket.getId();
@@ -154,6 +159,30 @@ public class TicketController {
         }
     }
     
+    /**
+     * Групповое бронирование (места через запятую)
+     */
+    @PostMapping("/new/group")
+    @PreAuthorize("hasRole('CUSTOMER')")
+    public String createGroupBooking(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                     @RequestParam Long movieId,
+                                     @RequestParam String showtime,
+                                     @RequestParam String seats,
+                                     @RequestParam(required = false) String promoCode,
+                                     RedirectAttributes redirectAttributes) {
+        try {
+            LocalDateTime showtimeDateTime = LocalDateTime.parse(showtime);
+            List<String> ticketNumbers = ticketService.createGroupBooking(userDetails.getUser(), movieId,
+                showtimeDateTime, Arrays.asList(seats.split("[,;\\s]+")), promoCode);
+            
+            redirectAttributes.addFlashAttribute("success",
+                "Забронировано билетов: " + ticketNumbers.size() + " (" + String.join(", ", ticketNumbers) + ")");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", e.getMessage());
+        }
+        return "redirect:/tickets/my";
+    }
+    
     /**
      * Изменение статуса билета (для кассиров/менеджеров)
      */
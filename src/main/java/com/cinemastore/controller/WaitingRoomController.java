@@ -0,0 +1,97 @@
+package com.cinemastore.controller;
+
+import com.cinemastore.security.CustomUserDetails;
+import com.cinemastore.security.WaitingRoom;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Страница ожидания в очереди на покупку билетов
+ */
+@Controller
+@RequestMapping("/waiting-room")
+@PreAuthorize("hasRole('CUSTOMER')")
+public class WaitingRoomController {
+    
+    private static final String NUMBER_ATTRIBUTE = "waitingRoomNumber";
+    
+    private final WaitingRoom waitingRoom;
+    
+    @Autowired
+    public WaitingRoomController(WaitingRoom waitingRoom) {
+        this.waitingRoom = waitingRoom;
+    }
+    
+    /**
+     * Страница очереди (номер выдается один раз на сессию)
+     */
+    @GetMapping
+    public String waitingRoom(@AuthenticationPrincipal CustomUserDetails userDetails,
+                              HttpServletRequest request,
+                              HttpServletResponse response,
+                              Model model) {
+        if (!waitingRoom.isEnabled() || admitIfReady(userDetails, request, response)) {
+            return "redirect:/tickets/new";
+        }
+        long position = waitingRoom.position(queueNumber(request.getSession()));
+        model.addAttribute("position", position);
+        model.addAttribute("estimatedWaitSeconds", waitingRoom.estimatedWaitSeconds(position));
+        return "tickets/waiting-room";
+    }
+    
+    /**
+     * Позиция в очереди для опроса со страницы ожидания
+     */
+    @GetMapping("/status")
+    @ResponseBody
+    public Map<String, Object> status(@AuthenticationPrincipal CustomUserDetails userDetails,
+                                      HttpServletRequest request,
+                                      HttpServletResponse response) {
+        boolean admitted = !waitingRoom.isEnabled() || admitIfReady(userDetails, request, response);
+        long position = admitted ? 0 : waitingRoom.position(queueNumber(request.getSession()));
+        
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("admitted", admitted);
+        status.put("position", position);
+        status.put("estimatedWaitSeconds", waitingRoom.estimatedWaitSeconds(position));
+        return status;
+    }
+    
+    private long queueNumber(HttpSession session) {
+        Long number = (Long) session.getAttribute(NUMBER_ATTRIBUTE);
+        if (number == null) {
+            number = waitingRoom.join();
+            session.setAttribute(NUMBER_ATTRIBUTE, number);
+        }
+        return number;
+    }
+    
+    // Номер дошел до границы допуска - выдаем токен и освобождаем место в сессии
+    private boolean admitIfReady(CustomUserDetails userDetails, HttpServletRequest request, HttpServletResponse response) {
+        HttpSession session = request.getSession();
+        if (waitingRoom.position(queueNumber(session)) > 0) {
+            return false;
+        }
+        session.removeAttribute(NUMBER_ATTRIBUTE);
+        
+        Cookie cookie = new Cookie(WaitingRoom.ADMISSION_COOKIE, waitingRoom.issueToken(userDetails.getUsername()));
+        cookie.setHttpOnly(true);
+        cookie.setPath(request.getContextPath() + "/tickets");
+        cookie.setMaxAge((int) waitingRoom.getTokenTtl().toSeconds());
+        response.addCookie(cookie);
+        return true;
+    }
+}
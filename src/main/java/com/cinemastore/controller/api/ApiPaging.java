@@ -0,0 +1,19 @@
+package com.cinemastore.controller.api;
+
+/**
+ * Ограничения курсорной пагинации REST API
+ */
+final class ApiPaging {
+    
+    static final int DEFAULT_LIMIT = 20;
+    static final int MAX_LIMIT = 100;
+    
+    private ApiPaging() {}
+    
+    static int limit(int requested) {
+        if (requested < 1) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(requested, MAX_LIMIT);
+    }
+}
@@ -0,0 +1,44 @@
+package com.cinemastore.controller.api;
+
+import com.cinemastore.dto.FieldSelection;
+import com.cinemastore.service.GenreService;
+import com.cinemastore.service.StudioService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST API справочников каталога (жанры и студии)
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class CatalogApiController {
+    
+    private final GenreService genreService;
+    private final StudioService studioService;
+    
+    @Autowired
+    public CatalogApiController(GenreService genreService, StudioService studioService) {
+        this.genreService = genreService;
+        this.studioService = studioService;
+    }
+    
+    /**
+     * Все жанры
+     */
+    @GetMapping("/genres")
+    public MappingJacksonValue listGenres(@RequestParam(required = false) String fields) {
+        return FieldSelection.apply(genreService.findAllSummaries(), fields);
+    }
+    
+    /**
+     * Активные студии
+     */
+    @GetMapping("/studios")
+    public MappingJacksonValue listStudios(@RequestParam(required = false) String fields) {
+        return FieldSelection.apply(studioService.findActiveSummaries(), fields);
+    }
+}
@@ -0,0 +1,36 @@
+package com.cinemastore.controller.api;
+
+import com.cinemastore.event.LocalEventBroker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST API потока событий по билетам (при включенном локальном брокере)
+ */
+@RestController
+@RequestMapping("/api/v1/events")
+@ConditionalOnProperty(name = "app.outbox.broker.enabled", havingValue = "true")
+public class EventStreamApiController {
+    
+    private final LocalEventBroker broker;
+    
+    @Autowired
+    public EventStreamApiController(LocalEventBroker broker) {
+        this.broker = broker;
+    }
+    
+    /**
+     * Чтение потока по смещению
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyRole('MANAGER', 'ADMIN')")
+    public LocalEventBroker.Slice readEvents(@RequestParam(defaultValue = "0") long offset,
+                                             @RequestParam(defaultValue = "20") int limit) {
+        return broker.read(offset, ApiPaging.limit(limit));
+    }
+}
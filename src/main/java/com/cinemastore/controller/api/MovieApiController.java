@@ -0,0 +1,50 @@
+package com.cinemastore.controller.api;
+
+import com.cinemastore.dto.FieldSelection;
+import com.cinemastore.service.MovieService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST API каталога фильмов
+ */
+@RestController
+@RequestMapping("/api/v1/movies")
+public class MovieApiController {
+    
+    private final MovieService movieService;
+    
+    @Autowired
+    public MovieApiController(MovieService movieService) {
+        this.movieService = movieService;
+    }
+    
+    /**
+     * Список фильмов с фильтрами и курсорной пагинацией
+     */
+    @GetMapping
+    public MappingJacksonValue listMovies(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) Long genreId,
+            @RequestParam(required = false) Long studioId,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) String fields) {
+        return FieldSelection.apply(
+            movieService.findSummaries(afterId, genreId, studioId, available, ApiPaging.limit(limit)),
+            fields);
+    }
+    
+    /**
+     * Фильм по ID
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<MappingJacksonValue> getMovie(@PathVariable Long id,
+                                                        @RequestParam(required = false) String fields) {
+        return movieService.findSummaryById(id)
+            .map(movie -> ResponseEntity.ok(FieldSelection.apply(movie, fields)))
+            .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,34 @@
+package com.cinemastore.controller.api;
+
+import com.cinemastore.dto.Suggestion;
+import com.cinemastore.service.SuggestionIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST API подсказок поиска (фильмы, жанры, студии)
+ */
+@RestController
+@RequestMapping("/api/v1/suggest")
+public class SuggestApiController {
+    
+    private static final int MAX_SUGGESTIONS = 10;
+    
+    private final SuggestionIndex suggestionIndex;
+    
+    @Autowired
+    public SuggestApiController(SuggestionIndex suggestionIndex) {
+        this.suggestionIndex = suggestionIndex;
+    }
+    
+    /**
+     * Подсказки по началу слова, самые популярные первыми
+     */
+    @GetMapping
+    public List<Suggestion> suggest(@RequestParam(defaultValue = "") String q,
+                                    @RequestParam(defaultValue = "8") int limit) {
+        return suggestionIndex.suggest(q, Math.max(1, Math.min(limit, MAX_SUGGESTIONS)));
+    }
+}
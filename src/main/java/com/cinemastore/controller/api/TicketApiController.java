@@ -0,0 +1,82 @@
+package com.cinemastore.controller.api;
+
+import com.cinemastore.dto.FieldSelection;
+import com.cinemastore.dto.TicketSummary;
+import com.cinemastore.entity.Role;
+import com.cinemastore.entity.TicketStatus;
+import com.cinemastore.entity.User;
+import com.cinemastore.security.CustomUserDetails;
+import com.cinemastore.service.TicketService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Optional;
+
+/**
+ * REST API билетов
+ */
+@RestController
+@RequestMapping("/api/v1/tickets")
+public class TicketApiController {
+    
+    private final TicketService ticketService;
+    
+    @Autowired
+    public TicketApiController(TicketService ticketService) {
+        this.ticketService = ticketService;
+    }
+    
+    /**
+     * Все билеты (для кассиров, менеджеров и админов)
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyRole('CASHIER', 'MANAGER', 'ADMIN')")
+    public MappingJacksonValue listTickets(
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) TicketStatus status,
+            @RequestParam(required = false) String fields) {
+        return FieldSelection.apply(
+            ticketService.findSummaries(afterId, status, ApiPaging.limit(limit)),
+            fields);
+    }
+    
+    /**
+     * Билеты текущего пользователя
+     */
+    @GetMapping("/my")
+    public MappingJacksonValue myTickets(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(defaultValue = "0") long afterId,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String fields) {
+        return FieldSelection.apply(
+            ticketService.findCustomerSummaries(userDetails.getUser(), afterId, ApiPaging.limit(limit)),
+            fields);
+    }
+    
+    /**
+     * Билет по ID (зритель видит только свои билеты)
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<MappingJacksonValue> getTicket(@PathVariable Long id,
+                                                         @AuthenticationPrincipal CustomUserDetails userDetails,
+                                                         @RequestParam(required = false) String fields) {
+        Optional<TicketSummary> ticket = ticketService.findSummaryById(id);
+        if (ticket.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        
+        User currentUser = userDetails.getUser();
+        if (currentUser.getRole() == Role.CUSTOMER && !ticket.get().customerId().equals(currentUser.getId())) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        
+        return ResponseEntity.ok(FieldSelection.apply(ticket.get(), fields));
+    }
+}
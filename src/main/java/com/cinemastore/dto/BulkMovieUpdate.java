@@ -0,0 +1,32 @@
+package com.cinemastore.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Массовая операция над фильмами жанра и/или студии
+ */
+public record BulkMovieUpdate(Long genreId,
+                              Long studioId,
+                              Action action,
+                              BigDecimal percent,
+                              Boolean available,
+                              Long targetGenreId,
+                              Long targetStudioId) {
+    
+    public enum Action {
+        REPRICE("Изменить цену на процент"),
+        SET_AVAILABLE("Изменить доступность"),
+        REASSIGN_GENRE("Перенести в другой жанр"),
+        REASSIGN_STUDIO("Перенести в другую студию");
+        
+        private final String displayName;
+        
+        Action(String displayName) {
+            this.displayName = displayName;
+        }
+        
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.cinemastore.dto;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Выборочная сериализация полей проекций (параметр fields=id,name,price).
+ * Фильтр по умолчанию (все поля) регистрируется в JacksonConfig.
+ */
+public final class FieldSelection {
+    
+    public static final String FILTER_ID = "fields";
+    
+    private FieldSelection() {}
+    
+    /**
+     * Оборачивает ответ так, чтобы в проекциях остались только запрошенные поля
+     */
+    public static MappingJacksonValue apply(Object body, String fields) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        if (fields == null || fields.isBlank()) {
+            return value;
+        }
+        Set<String> selected = Arrays.stream(fields.split(","))
+            .map(String::trim)
+            .filter(f -> !f.isEmpty())
+            .collect(Collectors.toSet());
+        value.setFilters(new SimpleFilterProvider()
+            .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(selected)));
+        return value;
+    }
+}
@@ -0,0 +1,10 @@
+package com.cinemastore.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+/**
+ * Облегченная проекция жанра для API
+ */
+@JsonFilter(FieldSelection.FILTER_ID)
+public record GenreSummary(Long id, String name, String description) {
+}
@@ -0,0 +1,18 @@
+package com.cinemastore.dto;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Страница результатов с курсорной (keyset) пагинацией.
+ * nextAfterId передается клиентом в следующем запросе как afterId; null - данных больше нет.
+ */
+public record KeysetPage<T>(List<T> items, Long nextAfterId) {
+    
+    public static <T> KeysetPage<T> of(List<T> items, int limit, ToLongFunction<T> idExtractor) {
+        Long next = items.size() == limit && !items.isEmpty()
+            ? idExtractor.applyAsLong(items.get(items.size() - 1))
+            : null;
+        return new KeysetPage<>(items, next);
+    }
+}
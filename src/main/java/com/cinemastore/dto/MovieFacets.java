@@ -0,0 +1,40 @@
+package com.cinemastore.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Счетчики фасетов списка фильмов для текущего набора фильтров.
+ * Счетчик измерения не учитывает фильтр по этому же измерению: видно, сколько фильмов
+ * даст выбор другого жанра, студии, доступности или ценового диапазона.
+ */
+public record MovieFacets(Map<Long, Long> genres,
+                          Map<Long, Long> studios,
+                          long available,
+                          long unavailable,
+                          List<PriceBucket> priceBuckets) {
+    
+    public static final MovieFacets EMPTY = new MovieFacets(Map.of(), Map.of(), 0, 0, List.of());
+    
+    /**
+     * Ценовой диапазон [from, to); to = null - без верхней границы
+     */
+    public record PriceBucket(BigDecimal from, BigDecimal to, long count) {
+        
+        /**
+         * Включительная верхняя граница для фильтра maxPrice
+         */
+        public BigDecimal maxPrice() {
+            return to != null ? to.subtract(new BigDecimal("0.01")) : null;
+        }
+    }
+    
+    public long genre(Long genreId) {
+        return genres.getOrDefault(genreId, 0L);
+    }
+    
+    public long studio(Long studioId) {
+        return studios.getOrDefault(studioId, 0L);
+    }
+}
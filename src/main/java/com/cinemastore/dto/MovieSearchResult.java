@@ -0,0 +1,9 @@
+package com.cinemastore.dto;
+
+import org.springframework.data.domain.Page;
+
+/**
+ * Страница фильмов вместе со счетчиками фасетов
+ */
+public record MovieSearchResult(Page<MovieSummary> movies, MovieFacets facets) {
+}
@@ -0,0 +1,35 @@
+package com.cinemastore.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Облегченная проекция фильма для списков и API (без описания и служебных полей)
+ */
+@JsonFilter(FieldSelection.FILTER_ID)
+public record MovieSummary(Long id,
+                           String name,
+                           BigDecimal price,
+                           Integer duration,
+                           LocalDate releaseDate,
+                           BigDecimal rating,
+                           boolean available,
+                           Long genreId,
+                           String genreName,
+                           Long studioId,
+                           String studioName) {
+    
+    @JsonIgnore
+    public String getFormattedDuration() {
+        if (duration == null) return "";
+        int hours = duration / 60;
+        int minutes = duration % 60;
+        if (hours > 0) {
+            return hours + " ч " + minutes + " мин";
+        }
+        return minutes + " мин";
+    }
+}
@@ -0,0 +1,23 @@
+package com.cinemastore.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Заполняемость сеанса: продано мест из вместимости зала
+ */
+public record ShowtimeOccupancy(long movieId,
+                                String movieName,
+                                LocalDateTime showtime,
+                                long soldSeats,
+                                int capacity) {
+    
+    /**
+     * Процент проданных мест (0-100)
+     */
+    public int percent() {
+        if (capacity <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, soldSeats * 100 / capacity);
+    }
+}
@@ -0,0 +1,10 @@
+package com.cinemastore.dto;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+/**
+ * Облегченная проекция киностудии для API
+ */
+@JsonFilter(FieldSelection.FILTER_ID)
+public record StudioSummary(Long id, String companyName, boolean active) {
+}
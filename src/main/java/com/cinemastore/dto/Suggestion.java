@@ -0,0 +1,11 @@
+package com.cinemastore.dto;
+
+/**
+ * Подсказка поиска: фильм, жанр или киностудия
+ */
+public record Suggestion(Type type, Long id, String text) {
+    
+    public enum Type {
+        MOVIE, GENRE, STUDIO
+    }
+}
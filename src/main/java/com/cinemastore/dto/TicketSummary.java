@@ -0,0 +1,25 @@
+package com.cinemastore.dto;
+
+import com.cinemastore.entity.TicketStatus;
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Облегченная проекция билета для списков и API
+ */
+@JsonFilter(FieldSelection.FILTER_ID)
+public record TicketSummary(Long id,
+                            String ticketNumber,
+                            Long movieId,
+                            String movieName,
+                            Long customerId,
+                            String customerName,
+                            String customerPhone,
+                            LocalDateTime showtime,
+                            String seat,
+                            TicketStatus status,
+                            BigDecimal price,
+                            LocalDateTime createdAt) {
+}
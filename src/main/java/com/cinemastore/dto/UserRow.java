@@ -0,0 +1,22 @@
+package com.cinemastore.dto;
+
+import com.cinemastore.entity.Role;
+
+import java.time.LocalDateTime;
+
+/**
+ * Строка таблицы пользователей в админ-панели (без пароля, адреса и служебных полей)
+ */
+public record UserRow(Long id,
+                      String username,
+                      String email,
+                      String firstName,
+                      String lastName,
+                      Role role,
+                      boolean enabled,
+                      LocalDateTime createdAt) {
+    
+    public String getFullName() {
+        return firstName + " " + lastName;
+    }
+}
@@ -0,0 +1,40 @@
+package com.cinemastore.dto;
+
+import com.cinemastore.entity.Role;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Статистика пользователей: общее количество и разбивка по ролям
+ */
+public record UserStatistics(long total, Map<Role, Long> byRole) {
+    
+    public static final UserStatistics EMPTY = new UserStatistics(0, Map.of());
+    
+    public UserStatistics {
+        byRole = byRole.isEmpty()
+            ? Map.of()
+            : Collections.unmodifiableMap(new EnumMap<>(byRole));
+    }
+    
+    /**
+     * Количество пользователей с ролью
+     */
+    public long count(Role role) {
+        return byRole.getOrDefault(role, 0L);
+    }
+    
+    /**
+     * Атрибуты модели для панелей администратора
+     */
+    public Map<String, Object> toModel() {
+        return Map.of(
+            "totalUsers", total,
+            "customerCount", count(Role.CUSTOMER),
+            "cashierCount", count(Role.CASHIER),
+            "managerCount", count(Role.MANAGER),
+            "adminCount", count(Role.ADMIN));
+    }
+}
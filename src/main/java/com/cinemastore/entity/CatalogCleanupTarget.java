@@ -0,0 +1,9 @@
+package com.cinemastore.entity;
+
+/**
+ * Справочник, удаляемый фоновой задачей вместе с отвязкой фильмов
+ */
+public enum CatalogCleanupTarget {
+    GENRE,
+    STUDIO
+}
@@ -0,0 +1,78 @@
+package com.cinemastore.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Незавершенное удаление жанра или студии с фильмами.
+ * Сохраняется в одной транзакции с запросом на удаление и удаляется в транзакции,
+ * которая удаляет запись справочника: после перезапуска задача продолжается с того же места.
+ */
+@Entity
+@Table(name = "catalog_cleanup_tasks", indexes = {
+    @Index(name = "idx_catalog_cleanup_tasks_claimed_until", columnList = "claimed_until, id")
+})
+public class CatalogCleanupTask {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "target", nullable = false, length = 20)
+    private CatalogCleanupTarget target;
+    
+    @Column(name = "target_id", nullable = false)
+    private Long targetId;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    // Задача занята экземпляром до этого времени; истекшая аренда - задачу можно продолжить
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+    
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+    
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+    
+    // Constructors
+    public CatalogCleanupTask() {}
+    
+    public CatalogCleanupTask(CatalogCleanupTarget target, Long targetId) {
+        this.target = target;
+        this.targetId = targetId;
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public CatalogCleanupTarget getTarget() {
+        return target;
+    }
+    
+    public Long getTargetId() {
+        return targetId;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public LocalDateTime getClaimedUntil() {
+        return claimedUntil;
+    }
+    
+    public int getAttempts() {
+        return attempts;
+    }
+    
+    public String getLastError() {
+        return lastError;
+    }
+}
@@ -3,8 +3,6 @@ package com.cinemastore.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Сущность жанра фильма
@@ -25,9 +23,6 @@ public class Genre {
     @Column(length = 500)
     private String description;
     
-    @OneToMany(mappedBy = "genre", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    private List<Movie> movies = new ArrayList<>();
-    
     // Constructors
     public Genre() {}
     
@@ -60,18 +55,6 @@ public class Genre {
     public void setDescription(String description) {
         this.description = description;
     }
-    
-    public List<Movie> getMovies() {
-        return movies;
-    }
-    
-    public void setMovies(List<Movie> movies) {
-        this.movies = movies;
-    }
-    
-    public int getMovieCount() {
-        return movies != null ? movies.size() : 0;
-    }
 }
 
 
@@ -10,7 +10,16 @@ import java.time.LocalDateTime;
  * Сущность фильма
  */
 @Entity
-@Table(name = "movies")
+@Table(name = "movies", indexes = {
+    // Поля сортировки списка фильмов (ListQueryGuard.Listing.MOVIES)
+    @Index(name = "idx_movies_name", columnList = "name"),
+    @Index(name = "idx_movies_price", columnList = "price"),
+    @Index(name = "idx_movies_duration", columnList = "duration"),
+    @Index(name = "idx_movies_release_date", columnList = "release_date"),
+    @Index(name = "idx_movies_rating", columnList = "rating"),
+    // Плановая активация и снятие с проката (ReleaseScheduler)
+    @Index(name = "idx_movies_end_of_run_date", columnList = "end_of_run_date")
+})
 public class Movie {
     
     @Id
@@ -22,6 +31,8 @@ public class Movie {
     @Column(nullable = false)
     private String name;
     
+    // Описание нужно только карточке и форме фильма: читается отдельным запросом при первом обращении
+    @Basic(fetch = FetchType.LAZY)
     @Column(length = 1000)
     private String description;
     
@@ -38,6 +49,9 @@ public class Movie {
     @Column(name = "release_date")
     private LocalDate releaseDate;
     
+    @Column(name = "end_of_run_date")
+    private LocalDate endOfRunDate; // последний день проката
+    
     @DecimalMin(value = "0.0", message = "Рейтинг не может быть отрицательным")
     @DecimalMax(value = "10.0", message = "Рейтинг не может быть больше 10")
     @Column(precision = 3, scale = 1)
@@ -131,6 +145,14 @@ public class Movie {
         this.releaseDate = releaseDate;
     }
     
+    public LocalDate getEndOfRunDate() {
+        return endOfRunDate;
+    }
+    
+    public void setEndOfRunDate(LocalDate endOfRunDate) {
+        this.endOfRunDate = endOfRunDate;
+    }
+    
     public BigDecimal getRating() {
         return rating;
     }
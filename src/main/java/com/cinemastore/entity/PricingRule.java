@@ -0,0 +1,189 @@
+package com.cinemastore.entity;
+
+import jakarta.persistence.*;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+
+/**
+ * Сущность правила ценообразования.
+ * Правило изменяет базовую цену фильма на adjustmentPercent процентов, если выполнено условие
+ * своего типа: часы сеанса, день недели, заполняемость зала, ряд места или промокод.
+ */
+@Entity
+@Table(name = "pricing_rules")
+public class PricingRule {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @NotBlank(message = "Название правила обязательно")
+    @Size(max = 100, message = "Название не должно превышать 100 символов")
+    @Column(nullable = false, length = 100)
+    private String name;
+    
+    @NotNull(message = "Тип правила обязателен")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PricingRuleType type;
+    
+    @NotNull(message = "Укажите изменение цены")
+    @Min(value = -100, message = "Скидка не может превышать 100%")
+    @Max(value = 500, message = "Наценка не может превышать 500%")
+    @Column(name = "adjustment_percent", nullable = false)
+    private Integer adjustmentPercent;
+    
+    // TIME_OF_DAY: сеансы с startHour (включительно) до endHour (не включительно)
+    @Min(value = 0, message = "Час должен быть от 0 до 23")
+    @Max(value = 23, message = "Час должен быть от 0 до 23")
+    @Column(name = "start_hour")
+    private Integer startHour;
+    
+    @Min(value = 1, message = "Час должен быть от 1 до 24")
+    @Max(value = 24, message = "Час должен быть от 1 до 24")
+    @Column(name = "end_hour")
+    private Integer endHour;
+    
+    // WEEKDAY
+    @Enumerated(EnumType.STRING)
+    @Column(name = "day_of_week", length = 10)
+    private DayOfWeek dayOfWeek;
+    
+    // OCCUPANCY: применяется, когда продано не меньше указанного процента мест
+    @Min(value = 0, message = "Процент заполняемости должен быть от 0 до 100")
+    @Max(value = 100, message = "Процент заполняемости должен быть от 0 до 100")
+    @Column(name = "min_occupancy_percent")
+    private Integer minOccupancyPercent;
+    
+    // SEAT_CATEGORY: буквы рядов через запятую (например: A,B)
+    @Size(max = 60, message = "Список рядов не должен превышать 60 символов")
+    @Column(name = "seat_rows", length = 60)
+    private String seatRows;
+    
+    // PROMO_CODE
+    @Size(max = 30, message = "Промокод не должен превышать 30 символов")
+    @Column(name = "promo_code", length = 30)
+    private String promoCode;
+    
+    @Column(nullable = false)
+    private boolean active = true;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+    
+    // Constructors
+    public PricingRule() {}
+    
+    public PricingRule(String name, PricingRuleType type, Integer adjustmentPercent) {
+        this.name = name;
+        this.type = type;
+        this.adjustmentPercent = adjustmentPercent;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public PricingRuleType getType() {
+        return type;
+    }
+    
+    public void setType(PricingRuleType type) {
+        this.type = type;
+    }
+    
+    public Integer getAdjustmentPercent() {
+        return adjustmentPercent;
+    }
+    
+    public void setAdjustmentPercent(Integer adjustmentPercent) {
+        this.adjustmentPercent = adjustmentPercent;
+    }
+    
+    public Integer getStartHour() {
+        return startHour;
+    }
+    
+    public void setStartHour(Integer startHour) {
+        this.startHour = startHour;
+    }
+    
+    public Integer getEndHour() {
+        return endHour;
+    }
+    
+    public void setEndHour(Integer endHour) {
+        this.endHour = endHour;
+    }
+    
+    public DayOfWeek getDayOfWeek() {
+        return dayOfWeek;
+    }
+    
+    public void setDayOfWeek(DayOfWeek dayOfWeek) {
+        this.dayOfWeek = dayOfWeek;
+    }
+    
+    public Integer getMinOccupancyPercent() {
+        return minOccupancyPercent;
+    }
+    
+    public void setMinOccupancyPercent(Integer minOccupancyPercent) {
+        this.minOccupancyPercent = minOccupancyPercent;
+    }
+    
+    public String getSeatRows() {
+        return seatRows;
+    }
+    
+    public void setSeatRows(String seatRows) {
+        this.seatRows = seatRows;
+    }
+    
+    public String getPromoCode() {
+        return promoCode;
+    }
+    
+    public void setPromoCode(String promoCode) {
+        this.promoCode = promoCode;
+    }
+    
+    public boolean isActive() {
+        return active;
+    }
+    
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
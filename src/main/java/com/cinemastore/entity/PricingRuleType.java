@@ -0,0 +1,22 @@
+package com.cinemastore.entity;
+
+/**
+ * Перечисление типов правил ценообразования
+ */
+public enum PricingRuleType {
+    TIME_OF_DAY("Время сеанса"),
+    WEEKDAY("День недели"),
+    OCCUPANCY("Заполняемость зала"),
+    SEAT_CATEGORY("Категория мест"),
+    PROMO_CODE("Промокод");
+    
+    private final String displayName;
+    
+    PricingRuleType(String displayName) {
+        this.displayName = displayName;
+    }
+    
+    public String getDisplayName() {
+        return displayName;
+    }
+}
@@ -0,0 +1,52 @@
+package com.cinemastore.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Отметка планировщика: последний день, обработанный задачей.
+ * Хранится в БД, поэтому перезапуск не повторяет уже обработанные дни,
+ * а несколько экземпляров приложения видят одну отметку.
+ */
+@Entity
+@Table(name = "scheduler_markers")
+public class SchedulerMarker {
+    
+    @Id
+    @Column(name = "name", length = 50)
+    private String name;
+    
+    @Column(name = "processed_through", nullable = false)
+    private LocalDate processedThrough;
+    
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+    
+    // Constructors
+    public SchedulerMarker() {}
+    
+    public SchedulerMarker(String name, LocalDate processedThrough) {
+        this.name = name;
+        this.processedThrough = processedThrough;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public String getName() {
+        return name;
+    }
+    
+    public LocalDate getProcessedThrough() {
+        return processedThrough;
+    }
+    
+    public void setProcessedThrough(LocalDate processedThrough) {
+        this.processedThrough = processedThrough;
+        this.updatedAt = LocalDateTime.now();
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
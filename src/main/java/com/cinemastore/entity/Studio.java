@@ -4,14 +4,14 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Сущность киностудии
  */
 @Entity
-@Table(name = "studios")
+@Table(name = "studios", indexes = {
+    @Index(name = "idx_studios_company_name", columnList = "company_name")
+})
 public class Studio {
     
     @Id
@@ -37,15 +37,14 @@ public class Studio {
     @Column(length = 500)
     private String address;
     
+    // Ленивый атрибут: описание выводится только на странице студии
+    @Basic(fetch = FetchType.LAZY)
     @Column(length = 1000)
     private String description;
     
     @Column(name = "is_active")
     private boolean active = true;
     
-    @OneToMany(mappedBy = "studio", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    private List<Movie> movies = new ArrayList<>();
-    
     // Constructors
     public Studio() {}
     
@@ -121,14 +120,6 @@ public class Studio {
     public void setActive(boolean active) {
         this.active = active;
     }
-    
-    public List<Movie> getMovies() {
-        return movies;
-    }
-    
-    public void setMovies(List<Movie> movies) {
-        this.movies = movies;
-    }
 }
 
 
@@ -3,12 +3,20 @@ package com.cinemastore.entity;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
 
 /**
  * Сущность билета
  */
 @Entity
-@Table(name = "tickets")
+@Table(name = "tickets", indexes = {
+    @Index(name = "idx_tickets_created_at", columnList = "created_at"),
+    @Index(name = "idx_tickets_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_tickets_showtime", columnList = "showtime"),
+    @Index(name = "idx_tickets_customer", columnList = "customer_id"),
+    @Index(name = "idx_tickets_price", columnList = "price")
+})
 public class Ticket {
     
     @Id
@@ -43,6 +51,8 @@ public class Ticket {
     @Column(name = "price", precision = 12, scale = 2, nullable = false)
     private BigDecimal price;
     
+    // Примечание показывается только в карточке билета
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "notes", length = 1000)
     private String notes;
     
@@ -55,6 +65,10 @@ public class Ticket {
     @Column(name = "used_at")
     private LocalDateTime usedAt;
     
+    @Version
+    @Column(name = "version", nullable = false, columnDefinition = "bigint default 0")
+    private long version;
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -73,7 +87,16 @@ public class Ticket {
     }
     
     private String generateTicketNumber() {
-        return "TKT-" + System.currentTimeMillis();
+        return newTicketNumberPrefix();
+    }
+    
+    /**
+     * Уникальная основа номера билета: время и случайный суффикс, чтобы номера,
+     * выданные в одну миллисекунду (в том числе разным групповым бронированиям), не совпадали
+     */
+    public static String newTicketNumberPrefix() {
+        String random = UUID.randomUUID().toString().substring(0, 8).toUpperCase(Locale.ROOT);
+        return "TKT-" + System.currentTimeMillis() + "-" + random;
     }
     
     // Constructors
@@ -193,5 +216,9 @@ public class Ticket {
     public void setUsedAt(LocalDateTime usedAt) {
         this.usedAt = usedAt;
     }
+    
+    public long getVersion() {
+        return version;
+    }
 }
 
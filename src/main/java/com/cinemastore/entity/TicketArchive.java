@@ -0,0 +1,126 @@
+package com.cinemastore.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Архивный билет: завершенные билеты прошедших сеансов, перенесенные из таблицы tickets.
+ * Ссылки хранятся как идентификаторы без внешних ключей, запись только для чтения.
+ */
+@Entity
+@Table(name = "tickets_archive", indexes = {
+    @Index(name = "idx_tickets_archive_showtime", columnList = "showtime"),
+    @Index(name = "idx_tickets_archive_created_at", columnList = "created_at"),
+    @Index(name = "idx_tickets_archive_customer", columnList = "customer_id"),
+    // Чтение архива через TicketRecord: точный поиск по номеру, статистика по статусам, проверки ссылок
+    @Index(name = "idx_tickets_archive_ticket_number", columnList = "ticket_number"),
+    @Index(name = "idx_tickets_archive_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_tickets_archive_movie", columnList = "movie_id"),
+    @Index(name = "idx_tickets_archive_cashier", columnList = "cashier_id")
+})
+public class TicketArchive {
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "ticket_number", nullable = false)
+    private String ticketNumber;
+    
+    @Column(name = "customer_id", nullable = false)
+    private Long customerId;
+    
+    @Column(name = "cashier_id")
+    private Long cashierId;
+    
+    @Column(name = "movie_id", nullable = false)
+    private Long movieId;
+    
+    @Column(name = "showtime", nullable = false)
+    private LocalDateTime showtime;
+    
+    @Column(name = "seat", length = 10)
+    private String seat;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private TicketStatus status;
+    
+    @Column(name = "price", precision = 12, scale = 2, nullable = false)
+    private BigDecimal price;
+    
+    @Column(name = "notes", length = 1000)
+    private String notes;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+    
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+    
+    // Constructors
+    public TicketArchive() {}
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public String getTicketNumber() {
+        return ticketNumber;
+    }
+    
+    public Long getCustomerId() {
+        return customerId;
+    }
+    
+    public Long getCashierId() {
+        return cashierId;
+    }
+    
+    public Long getMovieId() {
+        return movieId;
+    }
+    
+    public LocalDateTime getShowtime() {
+        return showtime;
+    }
+    
+    public String getSeat() {
+        return seat;
+    }
+    
+    public TicketStatus getStatus() {
+        return status;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public String getNotes() {
+        return notes;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public LocalDateTime getUsedAt() {
+        return usedAt;
+    }
+    
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.cinemastore.entity;
+
+/**
+ * Типы событий жизненного цикла билета
+ */
+public enum TicketEventType {
+    CREATED,
+    STATUS_CHANGED,
+    SEAT_CHANGED,
+    DELETED
+}
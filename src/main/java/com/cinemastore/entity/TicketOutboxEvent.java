@@ -0,0 +1,113 @@
+package com.cinemastore.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Запись outbox: событие по билету, сохраненное в одной транзакции с изменением билета.
+ * Ретранслятор публикует неопубликованные записи по порядку id.
+ */
+@Entity
+@Table(name = "ticket_outbox", indexes = {
+    @Index(name = "idx_ticket_outbox_published_at", columnList = "published_at, id")
+})
+public class TicketOutboxEvent {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 20)
+    private TicketEventType eventType;
+    
+    @Column(name = "ticket_id", nullable = false)
+    private Long ticketId;
+    
+    @Column(name = "movie_id", nullable = false)
+    private Long movieId;
+    
+    @Column(name = "showtime", nullable = false)
+    private LocalDateTime showtime;
+    
+    @Column(name = "seat", length = 10)
+    private String seat;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private TicketStatus status;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "previous_status", length = 20)
+    private TicketStatus previousStatus;
+    
+    @Column(name = "price", precision = 12, scale = 2)
+    private BigDecimal price;
+    
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "published_at")
+    private LocalDateTime publishedAt;
+    
+    // Constructors
+    public TicketOutboxEvent() {}
+    
+    public TicketOutboxEvent(TicketEventType eventType, Ticket ticket, TicketStatus previousStatus) {
+        this.eventType = eventType;
+        this.ticketId = ticket.getId();
+        this.movieId = ticket.getMovie().getId();
+        this.showtime = ticket.getShowtime();
+        this.seat = ticket.getSeat();
+        this.status = ticket.getStatus();
+        this.previousStatus = previousStatus;
+        this.price = ticket.getPrice();
+        this.createdAt = LocalDateTime.now();
+    }
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public TicketEventType getEventType() {
+        return eventType;
+    }
+    
+    public Long getTicketId() {
+        return ticketId;
+    }
+    
+    public Long getMovieId() {
+        return movieId;
+    }
+    
+    public LocalDateTime getShowtime() {
+        return showtime;
+    }
+    
+    public String getSeat() {
+        return seat;
+    }
+    
+    public TicketStatus getStatus() {
+        return status;
+    }
+    
+    public TicketStatus getPreviousStatus() {
+        return previousStatus;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public LocalDateTime getPublishedAt() {
+        return publishedAt;
+    }
+}
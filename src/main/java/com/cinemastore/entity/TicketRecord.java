@@ -0,0 +1,133 @@
+package com.cinemastore.entity;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Subselect;
+import org.hibernate.annotations.Synchronize;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Билет для чтения: горячая таблица tickets и архив tickets_archive как одна выборка (UNION ALL).
+ * Запросы списков, поиска, карточки и статистики идут сюда, поэтому архивация
+ * не меняет их результатов. Условия запроса переносятся в обе ветви и обслуживаются
+ * индексами каждой таблицы. Изменения билетов - только через Ticket.
+ */
+@Entity
+@Immutable
+@Subselect("SELECT id, ticket_number, customer_id, cashier_id, movie_id, showtime, seat, status, price, notes, " +
+           "created_at, updated_at, used_at, FALSE AS archived FROM tickets " +
+           "UNION ALL " +
+           "SELECT id, ticket_number, customer_id, cashier_id, movie_id, showtime, seat, status, price, notes, " +
+           "created_at, updated_at, used_at, TRUE AS archived FROM tickets_archive")
+@Synchronize({"tickets", "tickets_archive"})
+public class TicketRecord {
+    
+    @Id
+    private Long id;
+    
+    @Column(name = "ticket_number")
+    private String ticketNumber;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "customer_id")
+    private User customer;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "cashier_id")
+    private User cashier;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "movie_id")
+    private Movie movie;
+    
+    @Column(name = "showtime")
+    private LocalDateTime showtime;
+    
+    @Column(name = "seat")
+    private String seat;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status")
+    private TicketStatus status;
+    
+    @Column(name = "price")
+    private BigDecimal price;
+    
+    @Column(name = "notes")
+    private String notes;
+    
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @Column(name = "used_at")
+    private LocalDateTime usedAt;
+    
+    // Билет перенесен в архив: только просмотр, статус больше не меняется
+    @Column(name = "archived")
+    private boolean archived;
+    
+    // Constructors
+    protected TicketRecord() {}
+    
+    // Getters
+    public Long getId() {
+        return id;
+    }
+    
+    public String getTicketNumber() {
+        return ticketNumber;
+    }
+    
+    public User getCustomer() {
+        return customer;
+    }
+    
+    public User getCashier() {
+        return cashier;
+    }
+    
+    public Movie getMovie() {
+        return movie;
+    }
+    
+    public LocalDateTime getShowtime() {
+        return showtime;
+    }
+    
+    public String getSeat() {
+        return seat;
+    }
+    
+    public TicketStatus getStatus() {
+        return status;
+    }
+    
+    public BigDecimal getPrice() {
+        return price;
+    }
+    
+    public String getNotes() {
+        return notes;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public LocalDateTime getUsedAt() {
+        return usedAt;
+    }
+    
+    public boolean isArchived() {
+        return archived;
+    }
+}
@@ -20,6 +20,14 @@ public enum TicketStatus {
     public String getDisplayName() {
         return displayName;
     }
+    
+    /**
+     * Завершенный статус: билеты прошедших сеансов с ним переносятся в архив.
+     * Билеты с остальными статусами есть только в горячей таблице tickets.
+     */
+    public boolean isArchivable() {
+        return this == USED || this == COMPLETED || this == CANCELLED;
+    }
 }
 
 
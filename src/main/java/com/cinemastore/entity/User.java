@@ -10,7 +10,9 @@ import java.time.LocalDateTime;
  * Сущность пользователя системы
  */
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_created_at", columnList = "created_at")
+})
 public class User {
     
     @Id
@@ -0,0 +1,6 @@
+package com.cinemastore.event;
+
+/**
+ * Массовое изменение фильмов одним оператором (индексы в памяти перестраиваются целиком после коммита)
+ */
+public record CatalogChangedEvent(int updatedMovies) {}
@@ -0,0 +1,7 @@
+package com.cinemastore.event;
+
+/**
+ * Сохранена задача удаления жанра или студии с фильмами (обработка начинается после коммита,
+ * не дожидаясь планового опроса)
+ */
+public record CatalogCleanupEvent(Long taskId) {}
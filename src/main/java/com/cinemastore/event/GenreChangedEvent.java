@@ -0,0 +1,6 @@
+package com.cinemastore.event;
+
+/**
+ * Жанр создан, изменен или удален (подсказки поиска обновляются после коммита)
+ */
+public record GenreChangedEvent(Long genreId) {}
@@ -0,0 +1,52 @@
+package com.cinemastore.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Локальная замена брокера сообщений: кольцевой буфер событий по билетам
+ * с собственными смещениями. Внешние потребители читают поток по смещению
+ * (GET /api/v1/events) так же, как читали бы топик брокера.
+ * Включается свойством app.outbox.broker.enabled.
+ */
+@Component
+@ConditionalOnProperty(name = "app.outbox.broker.enabled", havingValue = "true")
+public class LocalEventBroker {
+    
+    private final TicketLifecycleEvent[] buffer;
+    private long nextOffset;
+    
+    public LocalEventBroker(@Value("${app.outbox.broker.capacity:10000}") int capacity) {
+        this.buffer = new TicketLifecycleEvent[capacity];
+    }
+    
+    @EventListener
+    public synchronized void onTicketEvent(TicketLifecycleEvent event) {
+        buffer[(int) (nextOffset % buffer.length)] = event;
+        nextOffset++;
+    }
+    
+    /**
+     * События начиная со смещения (события, вытесненные из буфера, пропускаются)
+     */
+    public synchronized Slice read(long fromOffset, int limit) {
+        long oldest = Math.max(0, nextOffset - buffer.length);
+        long from = Math.max(fromOffset, oldest);
+        long to = Math.min(nextOffset, from + limit);
+        List<TicketLifecycleEvent> events = new ArrayList<>((int) Math.max(0, to - from));
+        for (long offset = from; offset < to; offset++) {
+            events.add(buffer[(int) (offset % buffer.length)]);
+        }
+        return new Slice(events, from, to);
+    }
+    
+    /**
+     * Порция потока: события и смещение для следующего чтения
+     */
+    public record Slice(List<TicketLifecycleEvent> events, long fromOffset, long nextOffset) {}
+}
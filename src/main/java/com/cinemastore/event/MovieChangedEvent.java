@@ -0,0 +1,6 @@
+package com.cinemastore.event;
+
+/**
+ * Фильм создан, изменен или удален (индекс каталога обновляется после коммита)
+ */
+public record MovieChangedEvent(Long movieId) {}
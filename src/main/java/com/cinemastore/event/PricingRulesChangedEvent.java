@@ -0,0 +1,6 @@
+package com.cinemastore.event;
+
+/**
+ * Правила ценообразования изменены (таблица цен перестраивается после коммита)
+ */
+public record PricingRulesChangedEvent(Long ruleId) {}
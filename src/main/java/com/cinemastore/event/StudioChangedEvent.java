@@ -0,0 +1,6 @@
+package com.cinemastore.event;
+
+/**
+ * Киностудия создана, изменена или удалена (подсказки поиска обновляются после коммита)
+ */
+public record StudioChangedEvent(Long studioId) {}
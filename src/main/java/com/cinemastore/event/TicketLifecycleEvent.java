@@ -0,0 +1,48 @@
+package com.cinemastore.event;
+
+import com.cinemastore.entity.TicketEventType;
+import com.cinemastore.entity.TicketOutboxEvent;
+import com.cinemastore.entity.TicketStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Событие жизненного цикла билета, публикуемое из outbox.
+ * eventId монотонно растет и служит смещением для потребителей.
+ */
+public record TicketLifecycleEvent(long eventId,
+                                   TicketEventType type,
+                                   long ticketId,
+                                   long movieId,
+                                   LocalDateTime showtime,
+                                   String seat,
+                                   TicketStatus status,
+                                   TicketStatus previousStatus,
+                                   BigDecimal price,
+                                   LocalDateTime occurredAt) {
+    
+    public static TicketLifecycleEvent from(TicketOutboxEvent outbox) {
+        return new TicketLifecycleEvent(outbox.getId(), outbox.getEventType(), outbox.getTicketId(),
+            outbox.getMovieId(), outbox.getShowtime(), outbox.getSeat(), outbox.getStatus(),
+            outbox.getPreviousStatus(), outbox.getPrice(), outbox.getCreatedAt());
+    }
+    
+    /**
+     * Занимает ли билет место после события (отмененные и удаленные - нет)
+     */
+    public boolean occupiesSeat() {
+        return type != TicketEventType.DELETED && status != TicketStatus.CANCELLED;
+    }
+    
+    /**
+     * Занимал ли билет место до события
+     */
+    public boolean occupiedSeatBefore() {
+        return switch (type) {
+            case CREATED -> false;
+            case STATUS_CHANGED -> previousStatus != TicketStatus.CANCELLED;
+            case SEAT_CHANGED, DELETED -> status != TicketStatus.CANCELLED;
+        };
+    }
+}
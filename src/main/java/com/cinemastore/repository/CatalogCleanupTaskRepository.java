@@ -0,0 +1,42 @@
+package com.cinemastore.repository;
+
+import com.cinemastore.entity.CatalogCleanupTarget;
+import com.cinemastore.entity.CatalogCleanupTask;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий незавершенных удалений жанров и студий
+ */
+@Repository
+public interface CatalogCleanupTaskRepository extends JpaRepository<CatalogCleanupTask, Long> {
+    
+    boolean existsByTargetAndTargetId(CatalogCleanupTarget target, Long targetId);
+    
+    // Свободная задача (аренда истекла или не выдавалась); строки, захваченные другим экземпляром, пропускаются
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT t FROM CatalogCleanupTask t WHERE t.claimedUntil IS NULL OR t.claimedUntil < :now ORDER BY t.id ASC")
+    List<CatalogCleanupTask> findClaimable(@Param("now") LocalDateTime now, Limit limit);
+    
+    @Modifying
+    @Query("UPDATE CatalogCleanupTask t SET t.claimedUntil = :claimedUntil WHERE t.id = :id")
+    int claim(@Param("id") Long id, @Param("claimedUntil") LocalDateTime claimedUntil);
+    
+    // Неудачная попытка: задача освобождается после паузы
+    @Modifying
+    @Query("UPDATE CatalogCleanupTask t SET t.attempts = t.attempts + 1, t.lastError = :error, " +
+           "t.claimedUntil = :retryAt WHERE t.id = :id")
+    int recordFailure(@Param("id") Long id, @Param("error") String error, @Param("retryAt") LocalDateTime retryAt);
+    
+    @Modifying
+    @Query("DELETE FROM CatalogCleanupTask t WHERE t.id = :id")
+    int deleteTaskById(@Param("id") Long id);
+}
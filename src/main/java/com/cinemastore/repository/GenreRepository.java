@@ -1,9 +1,11 @@
 package com.cinemastore.repository;
 
+import com.cinemastore.dto.GenreSummary;
 import com.cinemastore.entity.Genre;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -24,11 +26,15 @@ public interface GenreRepository extends JpaRepository<Genre, Long> {
     @Query("SELECT g FROM Genre g WHERE LOWER(g.name) LIKE LOWER(CONCAT('%', :search, '%'))")
     Page<Genre> searchByName(@Param("search") String search, Pageable pageable);
     
-    @Query("SELECT g FROM Genre g LEFT JOIN FETCH g.movies WHERE g.id = :id")
-    Optional<Genre> findByIdWithMovies(@Param("id") Long id);
+    @Modifying
+    @Query("DELETE FROM Genre g WHERE g.id = :id")
+    int deleteGenreById(@Param("id") Long id);
     
     @Query("SELECT g FROM Genre g ORDER BY g.name ASC")
     List<Genre> findAllOrderByName();
+    
+    @Query("SELECT new com.cinemastore.dto.GenreSummary(g.id, g.name, g.description) FROM Genre g ORDER BY g.name ASC")
+    List<GenreSummary> findAllSummaries();
 }
 
 
@@ -1,16 +1,25 @@
 package com.cinemastore.repository;
 
+import com.cinemastore.dto.MovieSummary;
 import com.cinemastore.entity.Genre;
 import com.cinemastore.entity.Movie;
 import com.cinemastore.entity.Studio;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,6 +29,11 @@ import java.util.Optional;
 @Repository
 public interface MovieRepository extends JpaRepository<Movie, Long> {
     
+    // Проекция для списков и API: без описания и служебных полей
+    String SUMMARY_SELECT = "SELECT new com.cinemastore.dto.MovieSummary(m.id, m.name, m.price, m.duration, " +
+                            "m.releaseDate, m.rating, m.available, g.id, g.name, s.id, s.companyName) " +
+                            "FROM Movie m LEFT JOIN m.genre g LEFT JOIN m.studio s ";
+    
     List<Movie> findByGenre(Genre genre);
     
     Page<Movie> findByGenre(Genre genre, Pageable pageable);
@@ -32,6 +46,14 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     
     Page<Movie> findByAvailableTrue(Pageable pageable);
     
+    @EntityGraph(attributePaths = "genre")
+    List<Movie> findTop5ByAvailableFalseOrderByNameAsc();
+    
+    // Блокировка фильма на время распределения мест (сериализует покупки на один фильм)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM Movie m WHERE m.id = :id")
+    Optional<Movie> findByIdForUpdate(@Param("id") Long id);
+    
     // Поиск по названию и описанию
     @Query("SELECT m FROM Movie m WHERE " +
            "LOWER(m.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
@@ -52,21 +74,81 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
                                  @Param("maxPrice") BigDecimal maxPrice, 
                                  Pageable pageable);
     
-    // Комплексный поиск с фильтрами
-    @Query("SELECT m FROM Movie m WHERE " +
-           "(:search IS NULL OR LOWER(m.name) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
+    // Комплексный поиск с фильтрами (проекция для списка, без описания); pattern - SearchPatterns.contains
+    @Query(value = SUMMARY_SELECT + "WHERE " +
+           "(:pattern IS NULL OR LOWER(m.name) LIKE :pattern ESCAPE '\\') AND " +
+           "(:genreId IS NULL OR g.id = :genreId) AND " +
+           "(:studioId IS NULL OR s.id = :studioId) AND " +
+           "(:minPrice IS NULL OR m.price >= :minPrice) AND " +
+           "(:maxPrice IS NULL OR m.price <= :maxPrice) AND " +
+           "(:available IS NULL OR m.available = :available)",
+           countQuery = "SELECT COUNT(m) FROM Movie m WHERE " +
+           "(:pattern IS NULL OR LOWER(m.name) LIKE :pattern ESCAPE '\\') AND " +
            "(:genreId IS NULL OR m.genre.id = :genreId) AND " +
            "(:studioId IS NULL OR m.studio.id = :studioId) AND " +
            "(:minPrice IS NULL OR m.price >= :minPrice) AND " +
            "(:maxPrice IS NULL OR m.price <= :maxPrice) AND " +
            "(:available IS NULL OR m.available = :available)")
-    Page<Movie> findWithFilters(@Param("search") String search,
-                                @Param("genreId") Long genreId,
-                                @Param("studioId") Long studioId,
-                                @Param("minPrice") BigDecimal minPrice,
-                                @Param("maxPrice") BigDecimal maxPrice,
-                                @Param("available") Boolean available,
-                                Pageable pageable);
+    Page<MovieSummary> findWithFilters(@Param("pattern") String pattern,
+                                       @Param("genreId") Long genreId,
+                                       @Param("studioId") Long studioId,
+                                       @Param("minPrice") BigDecimal minPrice,
+                                       @Param("maxPrice") BigDecimal maxPrice,
+                                       @Param("available") Boolean available,
+                                       Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT, countQuery = "SELECT COUNT(m) FROM Movie m")
+    Page<MovieSummary> findSummaries(Pageable pageable);
+    
+    // Фильмы жанра и студии страницей без запроса количества: оно берется из кэша CatalogCounts
+    @Query(SUMMARY_SELECT + "WHERE g.id = :genreId")
+    List<MovieSummary> findSummariesByGenreId(@Param("genreId") Long genreId, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE s.id = :studioId")
+    List<MovieSummary> findSummariesByStudioId(@Param("studioId") Long studioId, Pageable pageable);
+    
+    long countByGenreId(Long genreId);
+    
+    long countByStudioId(Long studioId);
+    
+    // Количество фильмов по жанрам и студиям одним запросом
+    @Query("SELECT m.genre.id, COUNT(m) FROM Movie m WHERE m.genre IS NOT NULL GROUP BY m.genre.id")
+    List<Object[]> countGroupedByGenre();
+    
+    @Query("SELECT m.studio.id, COUNT(m) FROM Movie m WHERE m.studio IS NOT NULL GROUP BY m.studio.id")
+    List<Object[]> countGroupedByStudio();
+    
+    @Query(SUMMARY_SELECT + "ORDER BY m.name ASC")
+    List<MovieSummary> findSummariesOrderByName(Limit limit);
+    
+    // Фасеты при холодном индексе: одна группировка по жанру, студии, доступности и цене
+    @Query("SELECT g.id, s.id, m.available, m.price, COUNT(m) " +
+           "FROM Movie m LEFT JOIN m.genre g LEFT JOIN m.studio s WHERE " +
+           "(:pattern IS NULL OR LOWER(m.name) LIKE :pattern ESCAPE '\\') " +
+           "GROUP BY g.id, s.id, m.available, m.price")
+    List<Object[]> countFacetGroups(@Param("pattern") String pattern);
+    
+    // Проекции для REST API (курсорная пагинация по id)
+    @Query(SUMMARY_SELECT + "WHERE m.id > :afterId AND " +
+           "(:genreId IS NULL OR g.id = :genreId) AND " +
+           "(:studioId IS NULL OR s.id = :studioId) AND " +
+           "(:available IS NULL OR m.available = :available) " +
+           "ORDER BY m.id ASC")
+    List<MovieSummary> findSummariesAfter(@Param("afterId") long afterId,
+                                          @Param("genreId") Long genreId,
+                                          @Param("studioId") Long studioId,
+                                          @Param("available") Boolean available,
+                                          Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE m.id = :id")
+    Optional<MovieSummary> findSummaryById(@Param("id") Long id);
+    
+    @Query(SUMMARY_SELECT + "WHERE m.id IN :ids")
+    List<MovieSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+    
+    // Все строки каталога для индекса в памяти
+    @Query(SUMMARY_SELECT + "ORDER BY m.id ASC")
+    List<MovieSummary> findAllSummaries();
     
     // Статистика
     @Query("SELECT COUNT(m) FROM Movie m WHERE m.genre = :genre")
@@ -74,5 +156,86 @@ public interface MovieRepository extends JpaRepository<Movie, Long> {
     
     @Query("SELECT COUNT(m) FROM Movie m WHERE m.available = true")
     long countAvailable();
+    
+    @Query("SELECT COALESCE(MAX(m.id), 0) FROM Movie m")
+    long findMaxId();
+    
+    // Удаление одним оператором, без предварительной загрузки сущности
+    @Modifying
+    @Query("DELETE FROM Movie m WHERE m.id = :id")
+    int deleteMovieById(@Param("id") Long id);
+    
+    // Отвязка фильмов от удаляемого жанра или студии: id пачкой, затем один UPDATE на пачку
+    @Query("SELECT m.id FROM Movie m WHERE m.genre.id = :genreId ORDER BY m.id ASC")
+    List<Long> findIdsByGenreId(@Param("genreId") Long genreId, Limit limit);
+    
+    @Query("SELECT m.id FROM Movie m WHERE m.studio.id = :studioId ORDER BY m.id ASC")
+    List<Long> findIdsByStudioId(@Param("studioId") Long studioId, Limit limit);
+    
+    @Modifying
+    @Query("UPDATE Movie m SET m.genre = NULL, m.updatedAt = :now WHERE m.id IN :ids")
+    int detachGenre(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Movie m SET m.studio = NULL, m.updatedAt = :now WHERE m.id IN :ids")
+    int detachStudio(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+    
+    // Массовые операции менеджера над фильмами жанра и/или студии: один оператор на операцию
+    @Query("SELECT COUNT(m) FROM Movie m WHERE " +
+           "(:genreId IS NULL OR m.genre.id = :genreId) AND (:studioId IS NULL OR m.studio.id = :studioId)")
+    long countByScope(@Param("genreId") Long genreId, @Param("studioId") Long studioId);
+    
+    // Предпросмотр считает строки с тем же условием, что и UPDATE операции: уже совпадающие не учитываются
+    @Query("SELECT COUNT(m) FROM Movie m WHERE m.available <> :available AND " +
+           "(:genreId IS NULL OR m.genre.id = :genreId) AND (:studioId IS NULL OR m.studio.id = :studioId)")
+    long countAvailabilityChangesByScope(@Param("genreId") Long genreId, @Param("studioId") Long studioId,
+                                         @Param("available") boolean available);
+    
+    @Query("SELECT COUNT(m) FROM Movie m WHERE (m.genre IS NULL OR m.genre.id <> :targetId) AND " +
+           "(:genreId IS NULL OR m.genre.id = :genreId) AND (:studioId IS NULL OR m.studio.id = :studioId)")
+    long countGenreReassignmentsByScope(@Param("genreId") Long genreId, @Param("studioId") Long studioId,
+                                        @Param("targetId") Long targetGenreId);
+    
+    @Query("SELECT COUNT(m) FROM Movie m WHERE (m.studio IS NULL OR m.studio.id <> :targetId) AND " +
+           "(:genreId IS NULL OR m.genre.id = :genreId) AND (:studioId IS NULL OR m.studio.id = :studioId)")
+    long countStudioReassignmentsByScope(@Param("genreId") Long genreId, @Param("studioId") Long studioId,
+                                         @Param("targetId") Long targetStudioId);
+    
+    @Modifying
+    @Query("UPDATE Movie m SET m.price = ROUND(m.price * :factor, 2), m.updatedAt = :now WHERE " +
+           "(:genreId IS NULL OR m.genre.id = :genreId) AND (:studioId IS NULL OR m.studio.id = :studioId)")
+    int repriceByScope(@Param("genreId") Long genreId, @Param("studioId") Long studioId,
+                       @Param("factor") BigDecimal factor, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Movie m SET m.available = :available, m.updatedAt = :now WHERE m.available <> :available AND " +
+           "(:genreId IS NULL OR m.genre.id = :genreId) AND (:studioId IS NULL OR m.studio.id = :studioId)")
+    int setAvailableByScope(@Param("genreId") Long genreId, @Param("studioId") Long studioId,
+                            @Param("available") boolean available, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Movie m SET m.genre = :target, m.updatedAt = :now WHERE (m.genre IS NULL OR m.genre <> :target) AND " +
+           "(:genreId IS NULL OR m.genre.id = :genreId) AND (:studioId IS NULL OR m.studio.id = :studioId)")
+    int reassignGenreByScope(@Param("genreId") Long genreId, @Param("studioId") Long studioId,
+                             @Param("target") Genre target, @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Movie m SET m.studio = :target, m.updatedAt = :now WHERE (m.studio IS NULL OR m.studio <> :target) AND " +
+           "(:genreId IS NULL OR m.genre.id = :genreId) AND (:studioId IS NULL OR m.studio.id = :studioId)")
+    int reassignStudioByScope(@Param("genreId") Long genreId, @Param("studioId") Long studioId,
+                              @Param("target") Studio target, @Param("now") LocalDateTime now);
+    
+    // Выход в прокат и снятие с проката по датам: диапазон по индексу даты, меняются только отличающиеся строки
+    @Modifying
+    @Query("UPDATE Movie m SET m.available = true, m.updatedAt = :now WHERE m.available = false AND " +
+           "m.releaseDate BETWEEN :from AND :today AND (m.endOfRunDate IS NULL OR m.endOfRunDate >= :today)")
+    int activateReleased(@Param("from") LocalDate from, @Param("today") LocalDate today,
+                         @Param("now") LocalDateTime now);
+    
+    @Modifying
+    @Query("UPDATE Movie m SET m.available = false, m.updatedAt = :now WHERE m.available = true AND " +
+           "m.endOfRunDate >= :from AND m.endOfRunDate < :today")
+    int deactivateEndedRun(@Param("from") LocalDate from, @Param("today") LocalDate today,
+                           @Param("now") LocalDateTime now);
 }
 
@@ -0,0 +1,20 @@
+package com.cinemastore.repository;
+
+import com.cinemastore.entity.PricingRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Репозиторий правил ценообразования
+ */
+@Repository
+public interface PricingRuleRepository extends JpaRepository<PricingRule, Long> {
+    
+    List<PricingRule> findByActiveTrueOrderByIdAsc();
+    
+    List<PricingRule> findAllByOrderByTypeAscIdAsc();
+    
+    boolean existsByPromoCodeIgnoreCase(String promoCode);
+}
@@ -0,0 +1,33 @@
+package com.cinemastore.repository;
+
+import com.cinemastore.entity.SchedulerMarker;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Репозиторий отметок планировщиков
+ */
+@Repository
+public interface SchedulerMarkerRepository extends JpaRepository<SchedulerMarker, String> {
+    
+    // Блокировка строки до конца транзакции: запуски на разных экземплярах выполняются по очереди
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT m FROM SchedulerMarker m WHERE m.name = :name")
+    Optional<SchedulerMarker> findForUpdate(@Param("name") String name);
+    
+    // Вставка без merge: если отметку уже создал другой экземпляр, нарушается первичный ключ, а строка не перезаписывается
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_markers (name, processed_through, updated_at) " +
+                   "VALUES (:name, :processedThrough, :now)", nativeQuery = true)
+    int insert(@Param("name") String name, @Param("processedThrough") LocalDate processedThrough,
+               @Param("now") LocalDateTime now);
+}
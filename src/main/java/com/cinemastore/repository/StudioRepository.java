@@ -1,9 +1,11 @@
 package com.cinemastore.repository;
 
+import com.cinemastore.dto.StudioSummary;
 import com.cinemastore.entity.Studio;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -31,11 +33,24 @@ public interface StudioRepository extends JpaRepository<Studio, Long> {
            "LOWER(s.phone) LIKE LOWER(CONCAT('%', :search, '%'))")
     Page<Studio> searchStudios(@Param("search") String search, Pageable pageable);
     
+    @Modifying
+    @Query("DELETE FROM Studio s WHERE s.id = :id")
+    int deleteStudioById(@Param("id") Long id);
+    
+    // Скрытие студии на время фоновой отвязки фильмов
+    @Modifying
+    @Query("UPDATE Studio s SET s.active = false WHERE s.id = :id")
+    int deactivate(@Param("id") Long id);
+    
     @Query("SELECT s FROM Studio s ORDER BY s.companyName ASC")
     List<Studio> findAllOrderByName();
     
     @Query("SELECT s FROM Studio s WHERE s.active = true ORDER BY s.companyName ASC")
     List<Studio> findAllActiveOrderByName();
+    
+    @Query("SELECT new com.cinemastore.dto.StudioSummary(s.id, s.companyName, s.active) FROM Studio s " +
+           "WHERE s.active = true ORDER BY s.companyName ASC")
+    List<StudioSummary> findActiveSummaries();
 }
 
 
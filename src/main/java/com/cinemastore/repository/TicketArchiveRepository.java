@@ -0,0 +1,31 @@
+package com.cinemastore.repository;
+
+import com.cinemastore.entity.TicketArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий архива билетов
+ */
+@Repository
+public interface TicketArchiveRepository extends JpaRepository<TicketArchive, Long> {
+    
+    // Перенос пачки билетов в архив (INSERT ... SELECT без загрузки сущностей)
+    @Modifying
+    @Query("INSERT INTO TicketArchive (id, ticketNumber, customerId, cashierId, movieId, showtime, seat, " +
+           "status, price, notes, createdAt, updatedAt, usedAt, archivedAt) " +
+           "SELECT t.id, t.ticketNumber, cu.id, ca.id, m.id, t.showtime, t.seat, " +
+           "t.status, t.price, t.notes, t.createdAt, t.updatedAt, t.usedAt, :archivedAt " +
+           "FROM Ticket t JOIN t.customer cu JOIN t.movie m LEFT JOIN t.cashier ca WHERE t.id IN :ids")
+    int copyFromTickets(@Param("ids") List<Long> ids, @Param("archivedAt") LocalDateTime archivedAt);
+    
+    boolean existsByCustomerIdOrCashierId(Long customerId, Long cashierId);
+    
+    long countByMovieId(Long movieId);
+}
@@ -0,0 +1,56 @@
+package com.cinemastore.repository;
+
+import com.cinemastore.entity.TicketEventType;
+import com.cinemastore.entity.TicketOutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.*;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Репозиторий outbox событий по билетам
+ */
+@Repository
+public interface TicketOutboxRepository extends JpaRepository<TicketOutboxEvent, Long> {
+    
+    // События создания для пачки билетов, вставленных групповым бронированием (INSERT ... SELECT)
+    @Modifying
+    @Query("INSERT INTO TicketOutboxEvent (eventType, ticketId, movieId, showtime, seat, status, price, createdAt) " +
+           "SELECT :eventType, t.id, m.id, t.showtime, t.seat, t.status, t.price, :createdAt " +
+           "FROM Ticket t JOIN t.movie m WHERE t.ticketNumber IN :ticketNumbers")
+    int appendForTickets(@Param("ticketNumbers") List<String> ticketNumbers,
+                         @Param("eventType") TicketEventType eventType,
+                         @Param("createdAt") LocalDateTime createdAt);
+    
+    // Очередная пачка неопубликованных событий; строки, захваченные другим экземпляром, пропускаются
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM TicketOutboxEvent e WHERE e.publishedAt IS NULL ORDER BY e.id ASC")
+    List<TicketOutboxEvent> findUnpublished(Limit limit);
+    
+    @Modifying
+    @Query("UPDATE TicketOutboxEvent e SET e.publishedAt = :publishedAt WHERE e.id IN :ids")
+    int markPublished(@Param("ids") List<Long> ids, @Param("publishedAt") LocalDateTime publishedAt);
+    
+    @Modifying
+    @Query("DELETE FROM TicketOutboxEvent e WHERE e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+    
+    // Чтение outbox по id собственным курсором потребителя, независимо от ретранслятора
+    @Query("SELECT e FROM TicketOutboxEvent e WHERE e.id > :afterId ORDER BY e.id ASC")
+    List<TicketOutboxEvent> findAfter(@Param("afterId") long afterId, Limit limit);
+    
+    @Query("SELECT COALESCE(MAX(e.id), 0) FROM TicketOutboxEvent e WHERE e.createdAt < :before")
+    long findMaxIdCreatedBefore(@Param("before") LocalDateTime before);
+    
+    // Id событий по диапазону фильмов после курсора (для снимка перестроения проекции)
+    @Query("SELECT e.id FROM TicketOutboxEvent e WHERE e.movieId BETWEEN :fromMovieId AND :toMovieId AND e.id > :afterId")
+    List<Long> findIdsAfter(@Param("fromMovieId") long fromMovieId,
+                            @Param("toMovieId") long toMovieId,
+                            @Param("afterId") long afterId);
+}
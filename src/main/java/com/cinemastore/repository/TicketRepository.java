@@ -1,17 +1,22 @@
 package com.cinemastore.repository;
 
+import com.cinemastore.dto.TicketSummary;
 import com.cinemastore.entity.Ticket;
+import com.cinemastore.entity.TicketRecord;
 import com.cinemastore.entity.TicketStatus;
 import com.cinemastore.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,6 +26,17 @@ import java.util.Optional;
 @Repository
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
     
+    // Проекция для списков и API: без примечаний и служебных полей.
+    // Читается из TicketRecord (горячая таблица и архив), поэтому архивация не скрывает билеты
+    String SUMMARY_COLUMNS = "SELECT new com.cinemastore.dto.TicketSummary(t.id, t.ticketNumber, m.id, m.name, " +
+                             "c.id, CONCAT(c.firstName, ' ', c.lastName), c.phone, t.showtime, t.seat, t.status, " +
+                             "t.price, t.createdAt) ";
+    
+    String SUMMARY_SELECT = SUMMARY_COLUMNS + "FROM TicketRecord t JOIN t.movie m JOIN t.customer c ";
+    
+    // Только горячая таблица: для статусов, которые не архивируются (TicketStatus.isArchivable)
+    String LIVE_SUMMARY_SELECT = SUMMARY_COLUMNS + "FROM Ticket t JOIN t.movie m JOIN t.customer c ";
+    
     Optional<Ticket> findByTicketNumber(String ticketNumber);
     
     List<Ticket> findByCustomer(User customer);
@@ -33,6 +49,8 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     
     List<Ticket> findByStatus(TicketStatus status);
     
+    long countByMovieId(Long movieId);
+    
     Page<Ticket> findByStatus(TicketStatus status, Pageable pageable);
     
     // Билеты клиента по статусу
@@ -40,12 +58,99 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     
     Page<Ticket> findByCustomerAndStatus(User customer, TicketStatus status, Pageable pageable);
     
-    // Поиск билетов
-    @Query("SELECT t FROM Ticket t WHERE " +
-           "LOWER(t.ticketNumber) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(t.customer.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(t.customer.lastName) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<Ticket> searchTickets(@Param("search") String search, Pageable pageable);
+    // Страницы списков (проекции)
+    @Query(value = SUMMARY_SELECT, countQuery = "SELECT COUNT(t) FROM TicketRecord t")
+    Page<TicketSummary> findSummaries(Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE t.status = :status",
+           countQuery = "SELECT COUNT(t) FROM TicketRecord t WHERE t.status = :status")
+    Page<TicketSummary> findSummariesByStatus(@Param("status") TicketStatus status, Pageable pageable);
+    
+    @Query(value = LIVE_SUMMARY_SELECT + "WHERE t.status = :status",
+           countQuery = "SELECT COUNT(t) FROM Ticket t WHERE t.status = :status")
+    Page<TicketSummary> findLiveSummariesByStatus(@Param("status") TicketStatus status, Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE c.id = :customerId",
+           countQuery = "SELECT COUNT(t) FROM TicketRecord t WHERE t.customer.id = :customerId")
+    Page<TicketSummary> findSummariesByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE t.ticketNumber = :ticketNumber")
+    Optional<TicketSummary> findSummaryByTicketNumber(@Param("ticketNumber") String ticketNumber);
+    
+    // Поиск билетов по подстроке номера или по заранее найденным зрителям:
+    // условия обслуживаются индексами tickets, users присоединяется только по первичному ключу
+    @Query(value = SUMMARY_SELECT + "WHERE " +
+           "LOWER(t.ticketNumber) LIKE :pattern ESCAPE '\\' OR c.id IN :customerIds",
+           countQuery = "SELECT COUNT(t) FROM TicketRecord t WHERE " +
+           "LOWER(t.ticketNumber) LIKE :pattern ESCAPE '\\' OR t.customer.id IN :customerIds")
+    Page<TicketSummary> searchTickets(@Param("pattern") String pattern,
+                                      @Param("customerIds") Collection<Long> customerIds,
+                                      Pageable pageable);
+    
+    @Query(value = SUMMARY_SELECT + "WHERE LOWER(t.ticketNumber) LIKE :pattern ESCAPE '\\'",
+           countQuery = "SELECT COUNT(t) FROM TicketRecord t WHERE LOWER(t.ticketNumber) LIKE :pattern ESCAPE '\\'")
+    Page<TicketSummary> searchByTicketNumber(@Param("pattern") String pattern, Pageable pageable);
+    
+    // Запасной вариант для слишком общих запросов, совпадающих со многими зрителями
+    @Query(value = SUMMARY_SELECT + "WHERE " +
+           "LOWER(t.ticketNumber) LIKE :pattern ESCAPE '\\' OR c.id IN (" +
+           "SELECT u.id FROM User u WHERE " +
+           "LOWER(u.firstName) LIKE :pattern ESCAPE '\\' OR LOWER(u.lastName) LIKE :pattern ESCAPE '\\')",
+           countQuery = "SELECT COUNT(t) FROM TicketRecord t WHERE " +
+           "LOWER(t.ticketNumber) LIKE :pattern ESCAPE '\\' OR t.customer.id IN (" +
+           "SELECT u.id FROM User u WHERE " +
+           "LOWER(u.firstName) LIKE :pattern ESCAPE '\\' OR LOWER(u.lastName) LIKE :pattern ESCAPE '\\')")
+    Page<TicketSummary> searchTicketsBroad(@Param("pattern") String pattern, Pageable pageable);
+    
+    // Проекции для REST API (курсорная пагинация по id)
+    @Query(SUMMARY_SELECT + "WHERE t.id > :afterId AND " +
+           "(:status IS NULL OR t.status = :status) " +
+           "ORDER BY t.id ASC")
+    List<TicketSummary> findSummariesAfter(@Param("afterId") long afterId,
+                                           @Param("status") TicketStatus status,
+                                           Limit limit);
+    
+    @Query(LIVE_SUMMARY_SELECT + "WHERE t.id > :afterId AND t.status = :status ORDER BY t.id ASC")
+    List<TicketSummary> findLiveSummariesAfter(@Param("afterId") long afterId,
+                                               @Param("status") TicketStatus status,
+                                               Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE c.id = :customerId AND t.id > :afterId " +
+           "ORDER BY t.id ASC")
+    List<TicketSummary> findCustomerSummariesAfter(@Param("customerId") Long customerId,
+                                                   @Param("afterId") long afterId,
+                                                   Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE t.id = :id")
+    Optional<TicketSummary> findSummaryById(@Param("id") Long id);
+    
+    // Карточка билета (горячая таблица или архив)
+    @Query("SELECT t FROM TicketRecord t WHERE t.id = :id")
+    Optional<TicketRecord> findRecordById(@Param("id") Long id);
+    
+    // Занятые места сеанса (отмененные билеты место не занимают)
+    @Query("SELECT t.seat FROM Ticket t WHERE t.movie.id = :movieId AND t.showtime = :showtime " +
+           "AND t.seat IN :seats AND t.status <> 'CANCELLED'")
+    List<String> findTakenSeats(@Param("movieId") Long movieId,
+                                @Param("showtime") LocalDateTime showtime,
+                                @Param("seats") Collection<String> seats);
+    
+    // Текущий статус без загрузки сущности
+    @Query("SELECT t.status FROM Ticket t WHERE t.id = :id")
+    Optional<TicketStatus> findStatusById(@Param("id") Long id);
+    
+    // Переход статуса по принципу compare-and-set: применяется, только если статус не изменился
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE tickets SET status = :next, version = version + 1, updated_at = :now, " +
+                   "used_at = COALESCE(used_at, :usedAt), cashier_id = COALESCE(cashier_id, :cashierId) " +
+                   "WHERE id = :id AND status = :expected",
+           nativeQuery = true)
+    int compareAndSetStatus(@Param("id") Long id,
+                            @Param("expected") String expected,
+                            @Param("next") String next,
+                            @Param("cashierId") Long cashierId,
+                            @Param("usedAt") LocalDateTime usedAt,
+                            @Param("now") LocalDateTime now);
     
     // Билеты за период
     @Query("SELECT t FROM Ticket t WHERE t.createdAt BETWEEN :startDate AND :endDate")
@@ -54,24 +159,63 @@ public interface TicketRepository extends JpaRepository<Ticket, Long> {
     
     Page<Ticket> findByCreatedAtBetween(LocalDateTime startDate, LocalDateTime endDate, Pageable pageable);
     
-    // Статистика
-    @Query("SELECT COUNT(t) FROM Ticket t WHERE t.status = :status")
+    // Статистика (вместе с архивом)
+    @Query("SELECT COUNT(t) FROM TicketRecord t")
+    long countWithArchive();
+    
+    @Query("SELECT COUNT(t) FROM TicketRecord t WHERE t.status = :status")
     long countByStatus(@Param("status") TicketStatus status);
     
-    @Query("SELECT SUM(t.price) FROM Ticket t WHERE t.status = :status")
+    @Query("SELECT COUNT(t) FROM Ticket t WHERE t.status = :status")
+    long countLiveByStatus(@Param("status") TicketStatus status);
+    
+    @Query("SELECT SUM(t.price) FROM TicketRecord t WHERE t.status = :status")
     BigDecimal sumTotalByStatus(@Param("status") TicketStatus status);
     
-    @Query("SELECT SUM(t.price) FROM Ticket t WHERE t.createdAt BETWEEN :startDate AND :endDate AND t.status = 'USED'")
+    @Query("SELECT SUM(t.price) FROM TicketRecord t WHERE t.createdAt BETWEEN :startDate AND :endDate AND t.status = 'USED'")
     BigDecimal calculateRevenueBetweenDates(@Param("startDate") LocalDateTime startDate, 
                                             @Param("endDate") LocalDateTime endDate);
     
-    // Последние билеты
-    @Query("SELECT t FROM Ticket t ORDER BY t.createdAt DESC")
-    List<Ticket> findRecentTickets(Pageable pageable);
-    
-    // Билеты требующие обработки
-    @Query("SELECT t FROM Ticket t WHERE t.status IN ('RESERVED', 'PAID') ORDER BY t.createdAt ASC")
-    List<Ticket> findTicketsRequiringProcessing();
+    // Последние билеты: сначала горячая таблица, архив - только если в ней не набралось нужного числа
+    @Query(SUMMARY_SELECT + "ORDER BY t.createdAt DESC")
+    List<TicketSummary> findRecentSummaries(Limit limit);
+    
+    @Query(LIVE_SUMMARY_SELECT + "ORDER BY t.createdAt DESC")
+    List<TicketSummary> findRecentLiveSummaries(Limit limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE c.id = :customerId ORDER BY t.createdAt DESC")
+    List<TicketSummary> findRecentSummariesByCustomerId(@Param("customerId") Long customerId, Limit limit);
+    
+    @Query(LIVE_SUMMARY_SELECT + "WHERE c.id = :customerId ORDER BY t.createdAt DESC")
+    List<TicketSummary> findRecentLiveSummariesByCustomerId(@Param("customerId") Long customerId, Limit limit);
+    
+    // Кандидаты на архивацию: завершенные билеты прошедших сеансов
+    @Query("SELECT t.id FROM Ticket t WHERE t.showtime < :cutoff AND t.status IN :statuses ORDER BY t.id ASC")
+    List<Long> findArchivableIds(@Param("cutoff") LocalDateTime cutoff,
+                                 @Param("statuses") List<TicketStatus> statuses,
+                                 Limit limit);
+    
+    @Modifying
+    @Query("DELETE FROM Ticket t WHERE t.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") List<Long> ids);
+    
+    // Занятые места по сеансам для диапазона id фильмов (перестроение проекции заполняемости)
+    @Query("SELECT t.movie.id, t.showtime, COUNT(t) FROM Ticket t " +
+           "WHERE t.movie.id BETWEEN :fromMovieId AND :toMovieId AND t.showtime >= :since AND t.status <> :excluded " +
+           "GROUP BY t.movie.id, t.showtime")
+    List<Object[]> countOccupiedSeats(@Param("fromMovieId") long fromMovieId,
+                                      @Param("toMovieId") long toMovieId,
+                                      @Param("since") LocalDateTime since,
+                                      @Param("excluded") TicketStatus excluded);
+    
+    // Популярность фильмов для подсказок поиска
+    @Query("SELECT t.movie.id, COUNT(t) FROM TicketRecord t WHERE t.status <> 'CANCELLED' " +
+           "GROUP BY t.movie.id")
+    List<Object[]> countTicketsByMovie();
+    
+    // Билеты требующие обработки (такие статусы не архивируются)
+    @Query(LIVE_SUMMARY_SELECT + "WHERE t.status IN ('RESERVED', 'PAID') ORDER BY t.createdAt ASC")
+    List<TicketSummary> findTicketsRequiringProcessing();
 }
 
 
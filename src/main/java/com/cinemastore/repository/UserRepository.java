@@ -1,7 +1,9 @@
 package com.cinemastore.repository;
 
+import com.cinemastore.dto.UserRow;
 import com.cinemastore.entity.Role;
 import com.cinemastore.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -11,6 +13,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Репозиторий для работы с пользователями
@@ -18,6 +21,10 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
+    // Проекция для таблицы пользователей
+    String ROW_SELECT = "SELECT new com.cinemastore.dto.UserRow(u.id, u.username, u.email, u.firstName, " +
+                        "u.lastName, u.role, u.enabled, u.createdAt) FROM User u ";
+    
     Optional<User> findByUsername(String username);
     
     Optional<User> findByEmail(String email);
@@ -30,22 +37,51 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     Page<User> findByRole(Role role, Pageable pageable);
     
-    @Query("SELECT u FROM User u WHERE " +
-           "LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<User> searchUsers(@Param("search") String search, Pageable pageable);
+    @Query(value = ROW_SELECT, countQuery = "SELECT COUNT(u) FROM User u")
+    Page<UserRow> findRows(Pageable pageable);
+    
+    @Query(value = ROW_SELECT + "WHERE u.role = :role",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE u.role = :role")
+    Page<UserRow> findRowsByRole(@Param("role") Role role, Pageable pageable);
+    
+    @Query(ROW_SELECT + "WHERE u.email = :email")
+    Optional<UserRow> findRowByEmail(@Param("email") String email);
+    
+    // Поиск по подстроке: pattern - "%текст%" в нижнем регистре; на PostgreSQL каждое условие
+    // обслуживается триграммным GIN-индексом по lower(колонка)
+    @Query(value = ROW_SELECT + "WHERE " +
+           "LOWER(u.username) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(u.firstName) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(u.lastName) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(u.email) LIKE :pattern ESCAPE '\\'",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE " +
+           "LOWER(u.username) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(u.firstName) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(u.lastName) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(u.email) LIKE :pattern ESCAPE '\\'")
+    Page<UserRow> searchUsers(@Param("pattern") String pattern, Pageable pageable);
     
     @Query("SELECT u FROM User u WHERE u.role = :role AND (" +
-           "LOWER(u.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(u.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(u.lastName) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<User> searchUsersByRole(@Param("search") String search, @Param("role") Role role, Pageable pageable);
+           "LOWER(u.username) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(u.firstName) LIKE :pattern ESCAPE '\\' OR " +
+           "LOWER(u.lastName) LIKE :pattern ESCAPE '\\')")
+    Page<User> searchUsersByRole(@Param("pattern") String pattern, @Param("role") Role role, Pageable pageable);
+    
+    // id пользователей, чьи имя или фамилия содержат подстроку (для поиска билетов)
+    @Query("SELECT u.id FROM User u WHERE " +
+           "LOWER(u.firstName) LIKE :pattern ESCAPE '\\' OR LOWER(u.lastName) LIKE :pattern ESCAPE '\\'")
+    List<Long> findIdsByNameLike(@Param("pattern") String pattern, Limit limit);
     
     List<User> findByEnabledTrue();
     
     long countByRole(Role role);
+    
+    @Query("SELECT u.username FROM User u")
+    Stream<String> streamAllUsernames();
+    
+    // Количество пользователей по ролям одним запросом
+    @Query("SELECT u.role, COUNT(u) FROM User u GROUP BY u.role")
+    List<Object[]> countGroupedByRole();
 }
 
 
@@ -0,0 +1,137 @@
+package com.cinemastore.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Фильтр ограничения частоты для POST /login, покупки билетов и любых запросов
+ * с заголовком Authorization: Basic (по IP и имени из заголовка).
+ * Стоит в цепочке Spring Security перед формой входа и Basic-аутентификацией: отклоненный
+ * запрос не доходит ни до BCrypt, ни до БД и сразу получает 429 с Retry-After.
+ * Создается в SecurityConfig (не бин, чтобы не регистрироваться сервлет-фильтром повторно).
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    
+    private final RateLimiter rateLimiter;
+    
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !rateLimiter.isEnabled() || (resolveEndpoint(request) == null && basicUsername(request) == null);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String basicUser = basicUsername(request);
+        if (basicUser != null && !allow(RateLimiter.Endpoint.BASIC_AUTH, request, basicUser, response)) {
+            return;
+        }
+        RateLimiter.Endpoint endpoint = resolveEndpoint(request);
+        if (endpoint == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        
+        String user = resolveUser(request, endpoint);
+        if (!allow(endpoint, request, user != null ? user : basicUser, response)) {
+            return;
+        }
+        
+        boolean admitted;
+        try {
+            admitted = rateLimiter.enter(endpoint);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            rateLimiter.recordRejection(endpoint, "queue_full");
+            reject(response, 1);
+            return;
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            rateLimiter.exit(endpoint);
+        }
+    }
+    
+    private boolean allow(RateLimiter.Endpoint endpoint, HttpServletRequest request, String user,
+                          HttpServletResponse response) throws IOException {
+        RateLimiter.Decision decision = rateLimiter.check(endpoint, request.getRemoteAddr(), user);
+        if (decision == RateLimiter.Decision.ALLOWED) {
+            return true;
+        }
+        rateLimiter.recordRejection(endpoint, decision.name().toLowerCase());
+        reject(response, rateLimiter.retryAfterSeconds(endpoint, decision));
+        return false;
+    }
+    
+    private static RateLimiter.Endpoint resolveEndpoint(HttpServletRequest request) {
+        if (!"POST".equals(request.getMethod())) {
+            return null;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.equals("/login")) {
+            return RateLimiter.Endpoint.LOGIN;
+        }
+        if (path.equals("/tickets/new") || path.equals("/tickets/new/group")) {
+            return RateLimiter.Endpoint.TICKETS;
+        }
+        return null;
+    }
+    
+    // Вход - по введенному имени (подбор пароля к одной учетной записи), покупка - по текущему пользователю
+    private static String resolveUser(HttpServletRequest request, RateLimiter.Endpoint endpoint) {
+        if (endpoint == RateLimiter.Endpoint.LOGIN) {
+            return request.getParameter("username");
+        }
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+    
+    /**
+     * Имя пользователя из заголовка Authorization: Basic; пустая строка - заголовок есть,
+     * но не разбирается (такой запрос ограничивается только по IP), null - заголовка нет
+     */
+    private static String basicUsername(HttpServletRequest request) {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            return null;
+        }
+        try {
+            String credentials = new String(Base64.getDecoder().decode(header.substring(6).trim()),
+                                            StandardCharsets.UTF_8);
+            int colon = credentials.indexOf(':');
+            return colon >= 0 ? credentials.substring(0, colon) : "";
+        } catch (IllegalArgumentException e) {
+            return "";
+        }
+    }
+    
+    private static void reject(HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write("Слишком много запросов, повторите попытку через " + retryAfterSeconds + " с");
+    }
+}
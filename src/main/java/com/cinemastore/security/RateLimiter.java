@@ -0,0 +1,264 @@
+package com.cinemastore.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограничение частоты и конкурентности горячих запросов (вход, покупка билетов)
+ * и частоты запросов с Basic-аутентификацией (каждый такой запрос проверяет пароль).
+ * Частота: token bucket по ключам "IP" и "пользователь" в форме GCRA - состояние корзины
+ * хранится в одном AtomicLong (теоретическое время следующего запроса) и меняется CAS без блокировок.
+ * Разрешение списывается только тогда, когда его дают оба ключа.
+ * Конкурентность: не более max-concurrent запросов одновременно, до queue-capacity ждут
+ * не дольше max-wait-ms; при переполнении очереди запрос сразу получает отказ.
+ */
+@Component
+public class RateLimiter {
+    
+    /**
+     * Ограничиваемые операции
+     */
+    public enum Endpoint {
+        LOGIN, TICKETS, BASIC_AUTH
+    }
+    
+    /**
+     * Итог проверки частоты
+     */
+    public enum Decision {
+        ALLOWED, RATE_IP, RATE_USER
+    }
+    
+    // Состояния корзины помимо времени: новая (полная) и удаленная очисткой
+    private static final long FRESH = Long.MIN_VALUE;
+    private static final long EVICTED = Long.MIN_VALUE + 1;
+    
+    private final boolean enabled;
+    private final Map<Endpoint, Policy> ipPolicies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Policy> userPolicies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Gate> gates = new EnumMap<>(Endpoint.class);
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    
+    @Autowired
+    public RateLimiter(MeterRegistry meterRegistry,
+                       @Value("${app.ratelimit.enabled:true}") boolean enabled,
+                       @Value("${app.ratelimit.login.per-ip-per-minute:30}") int loginPerIp,
+                       @Value("${app.ratelimit.login.per-user-per-minute:10}") int loginPerUser,
+                       @Value("${app.ratelimit.login.burst:5}") int loginBurst,
+                       @Value("${app.ratelimit.tickets.per-ip-per-minute:120}") int ticketsPerIp,
+                       @Value("${app.ratelimit.tickets.per-user-per-minute:20}") int ticketsPerUser,
+                       @Value("${app.ratelimit.tickets.burst:5}") int ticketsBurst,
+                       @Value("${app.ratelimit.basic.per-ip-per-minute:300}") int basicPerIp,
+                       @Value("${app.ratelimit.basic.per-user-per-minute:120}") int basicPerUser,
+                       @Value("${app.ratelimit.basic.burst:20}") int basicBurst,
+                       @Value("${app.ratelimit.admission.max-concurrent:16}") int maxConcurrent,
+                       @Value("${app.ratelimit.admission.queue-capacity:64}") int queueCapacity,
+                       @Value("${app.ratelimit.admission.max-wait-ms:500}") long maxWaitMillis) {
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        ipPolicies.put(Endpoint.LOGIN, new Policy(loginPerIp, loginBurst));
+        userPolicies.put(Endpoint.LOGIN, new Policy(loginPerUser, loginBurst));
+        ipPolicies.put(Endpoint.TICKETS, new Policy(ticketsPerIp, ticketsBurst));
+        userPolicies.put(Endpoint.TICKETS, new Policy(ticketsPerUser, ticketsBurst));
+        ipPolicies.put(Endpoint.BASIC_AUTH, new Policy(basicPerIp, basicBurst));
+        userPolicies.put(Endpoint.BASIC_AUTH, new Policy(basicPerUser, basicBurst));
+        // Basic-аутентификация ограничивается только по частоте: допуск ждал бы весь запрос к API
+        for (Endpoint endpoint : EnumSet.of(Endpoint.LOGIN, Endpoint.TICKETS)) {
+            Gate gate = new Gate(maxConcurrent, queueCapacity, maxWaitMillis);
+            gates.put(endpoint, gate);
+            Gauge.builder("app.ratelimit.queued", gate.waiting, AtomicInteger::get)
+                .description("Запросы, ожидающие допуска")
+                .tag("endpoint", endpoint.name().toLowerCase())
+                .register(meterRegistry);
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Проверка частоты по IP и пользователю (user может быть null).
+     * Сначала оба ключа проверяются без списания: запрос, отклоненный по пользователю,
+     * не расходует лимит IP, общий для других пользователей за тем же NAT.
+     */
+    public Decision check(Endpoint endpoint, String ip, String user) {
+        String ipKey = endpoint.name() + "|ip|" + ip;
+        String userKey = user != null && !user.isEmpty() ? endpoint.name() + "|user|" + user : null;
+        Policy ipPolicy = ipPolicies.get(endpoint);
+        Policy userPolicy = userPolicies.get(endpoint);
+        
+        if (!hasCapacity(ipKey, ipPolicy)) {
+            return Decision.RATE_IP;
+        }
+        if (userKey != null && !hasCapacity(userKey, userPolicy)) {
+            return Decision.RATE_USER;
+        }
+        if (!tryAcquire(ipKey, ipPolicy)) {
+            return Decision.RATE_IP;
+        }
+        if (userKey != null && !tryAcquire(userKey, userPolicy)) {
+            // Параллельный запрос успел исчерпать лимит пользователя: разрешение IP возвращается
+            refund(ipKey, ipPolicy);
+            return Decision.RATE_USER;
+        }
+        return Decision.ALLOWED;
+    }
+    
+    /**
+     * Через сколько секунд у ключа снова появится разрешение (для Retry-After)
+     */
+    public long retryAfterSeconds(Endpoint endpoint, Decision decision) {
+        Policy policy = decision == Decision.RATE_USER ? userPolicies.get(endpoint) : ipPolicies.get(endpoint);
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(policy.emissionNanos) + 1);
+    }
+    
+    private boolean hasCapacity(String key, Policy policy) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return true;
+        }
+        long now = System.nanoTime();
+        return nextArrival(bucket.get(), now, policy) - now <= policy.toleranceNanos;
+    }
+    
+    private boolean tryAcquire(String key, Policy policy) {
+        while (true) {
+            AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(FRESH));
+            long now = System.nanoTime();
+            long theoreticalArrival = bucket.get();
+            if (theoreticalArrival == EVICTED) {
+                // Корзина удалена очисткой: следующий computeIfAbsent вернет новую
+                Thread.onSpinWait();
+                continue;
+            }
+            long next = nextArrival(theoreticalArrival, now, policy);
+            if (next - now > policy.toleranceNanos) {
+                return false;
+            }
+            if (bucket.compareAndSet(theoreticalArrival, next)) {
+                return true;
+            }
+        }
+    }
+    
+    private void refund(String key, Policy policy) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        long theoreticalArrival;
+        do {
+            theoreticalArrival = bucket.get();
+            if (theoreticalArrival == FRESH || theoreticalArrival == EVICTED) {
+                return;
+            }
+        } while (!bucket.compareAndSet(theoreticalArrival, theoreticalArrival - policy.emissionNanos));
+    }
+    
+    private static long nextArrival(long theoreticalArrival, long now, Policy policy) {
+        boolean full = theoreticalArrival == FRESH || theoreticalArrival == EVICTED || theoreticalArrival - now < 0;
+        return (full ? now : theoreticalArrival) + policy.emissionNanos;
+    }
+    
+    /**
+     * Допуск к выполнению: false - очередь переполнена или ожидание истекло
+     */
+    public boolean enter(Endpoint endpoint) throws InterruptedException {
+        return gates.get(endpoint).enter();
+    }
+    
+    public void exit(Endpoint endpoint) {
+        gates.get(endpoint).permits.release();
+    }
+    
+    /**
+     * Учет отказа в метриках
+     */
+    public void recordRejection(Endpoint endpoint, String reason) {
+        Counter.builder("app.ratelimit.rejected")
+            .description("Запросы, отклоненные с 429")
+            .tag("endpoint", endpoint.name().toLowerCase())
+            .tag("reason", reason)
+            .register(meterRegistry)
+            .increment();
+    }
+    
+    /**
+     * Удаление полных (неиспользуемых) корзин - они не отличаются от новых.
+     * Корзина помечается удаленной через CAS: если параллельное списание успело раньше,
+     * CAS не проходит и корзина остается; иначе списание увидит метку и возьмет новую.
+     */
+    @Scheduled(fixedDelayString = "${app.ratelimit.cleanup-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (String key : buckets.keySet()) {
+            buckets.computeIfPresent(key, (k, bucket) -> {
+                long theoreticalArrival = bucket.get();
+                boolean idle = theoreticalArrival == FRESH || theoreticalArrival - now < 0;
+                return idle && bucket.compareAndSet(theoreticalArrival, EVICTED) ? null : bucket;
+            });
+        }
+    }
+    
+    /**
+     * Параметры корзины: интервал между запросами и допустимый всплеск
+     */
+    private static final class Policy {
+        
+        private final long emissionNanos;
+        private final long toleranceNanos;
+        
+        private Policy(int perMinute, int burst) {
+            this.emissionNanos = TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+            this.toleranceNanos = emissionNanos * Math.max(1, burst);
+        }
+    }
+    
+    /**
+     * Ограничение одновременных запросов с ограниченной очередью ожидания
+     */
+    private static final class Gate {
+        
+        private final Semaphore permits;
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final int queueCapacity;
+        private final long maxWaitMillis;
+        
+        private Gate(int maxConcurrent, int queueCapacity, long maxWaitMillis) {
+            this.permits = new Semaphore(maxConcurrent);
+            this.queueCapacity = queueCapacity;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+        
+        private boolean enter() throws InterruptedException {
+            if (permits.tryAcquire()) {
+                return true;
+            }
+            if (waiting.incrementAndGet() > queueCapacity) {
+                waiting.decrementAndGet();
+                return false;
+            }
+            try {
+                return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+            } finally {
+                waiting.decrementAndGet();
+            }
+        }
+    }
+}
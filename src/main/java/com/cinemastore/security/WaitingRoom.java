@@ -0,0 +1,166 @@
+package com.cinemastore.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Виртуальная очередь перед покупкой билетов (премьеры с повышенным спросом).
+ * Каждый вошедший получает порядковый номер; раз в секунду граница допуска сдвигается
+ * на admissions-per-second номеров. Допущенный пользователь получает подписанный HMAC
+ * токен допуска (cookie), который проверяется без обращения к БД и сессии.
+ * Очередь хранится в памяти экземпляра; для нескольких экземпляров задается общий secret.
+ */
+@Component
+public class WaitingRoom {
+    
+    public static final String ADMISSION_COOKIE = "CINEMA_ADMISSION";
+    
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    private final AtomicBoolean enabled;
+    private final AtomicLong issued = new AtomicLong();
+    private final AtomicLong admittedUpTo = new AtomicLong();
+    private final int admissionsPerSecond;
+    private final Duration tokenTtl;
+    private final SecretKeySpec key;
+    
+    public WaitingRoom(@Value("${app.waiting-room.enabled:false}") boolean enabled,
+                       @Value("${app.waiting-room.admissions-per-second:5}") int admissionsPerSecond,
+                       @Value("${app.waiting-room.token-ttl-minutes:15}") long tokenTtlMinutes,
+                       @Value("${app.waiting-room.secret:}") String secret) {
+        this.enabled = new AtomicBoolean(enabled);
+        this.admissionsPerSecond = Math.max(1, admissionsPerSecond);
+        this.tokenTtl = Duration.ofMinutes(tokenTtlMinutes);
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            // Без общего секрета токены действительны только на этом экземпляре до перезапуска
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+    
+    public boolean isEnabled() {
+        return enabled.get();
+    }
+    
+    /**
+     * Включение/выключение очереди; при включении все ранее выданные номера считаются допущенными
+     */
+    public void setEnabled(boolean value) {
+        if (enabled.getAndSet(value) != value && value) {
+            admittedUpTo.set(issued.get());
+        }
+    }
+    
+    public int getAdmissionsPerSecond() {
+        return admissionsPerSecond;
+    }
+    
+    /**
+     * Новый номер в очереди
+     */
+    public long join() {
+        return issued.incrementAndGet();
+    }
+    
+    /**
+     * Сколько человек впереди (0 - номер допущен)
+     */
+    public long position(long number) {
+        return Math.max(0, number - admittedUpTo.get());
+    }
+    
+    /**
+     * Всего ожидающих
+     */
+    public long waitingCount() {
+        return Math.max(0, issued.get() - admittedUpTo.get());
+    }
+    
+    /**
+     * Оценка ожидания в секундах
+     */
+    public long estimatedWaitSeconds(long position) {
+        return (position + admissionsPerSecond - 1) / admissionsPerSecond;
+    }
+    
+    /**
+     * Сдвиг границы допуска (не дальше последнего выданного номера, чтобы простой не копил квоту)
+     */
+    @Scheduled(fixedRate = 1000)
+    public void admit() {
+        if (!enabled.get()) {
+            return;
+        }
+        long last = issued.get();
+        admittedUpTo.updateAndGet(current -> Math.min(last, current + admissionsPerSecond));
+    }
+    
+    public Duration getTokenTtl() {
+        return tokenTtl;
+    }
+    
+    /**
+     * Токен допуска: base64(имя:срок).подпись
+     */
+    public String issueToken(String username) {
+        String payload = username + ":" + Instant.now().plus(tokenTtl).getEpochSecond();
+        byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+        return ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    }
+    
+    /**
+     * Проверка подписи, срока и владельца токена
+     */
+    public boolean isValidToken(String token, String username) {
+        if (token == null || username == null) {
+            return false;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return false;
+        }
+        try {
+            byte[] payloadBytes = DECODER.decode(token.substring(0, dot));
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(sign(payloadBytes), signature)) {
+                return false;
+            }
+            String payload = new String(payloadBytes, StandardCharsets.UTF_8);
+            int separator = payload.lastIndexOf(':');
+            return separator > 0
+                && payload.substring(0, separator).equals(username)
+                && Long.parseLong(payload.substring(separator + 1)) > Instant.now().getEpochSecond();
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+    
+    private byte[] sign(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC недоступен", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.cinemastore.security;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.security.Principal;
+
+/**
+ * Пропуск к покупке билетов только с действующим токеном допуска, пока включена очередь
+ */
+@Component
+public class WaitingRoomInterceptor implements HandlerInterceptor {
+    
+    private final WaitingRoom waitingRoom;
+    
+    @Autowired
+    public WaitingRoomInterceptor(WaitingRoom waitingRoom) {
+        this.waitingRoom = waitingRoom;
+    }
+    
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!waitingRoom.isEnabled()) {
+            return true;
+        }
+        Principal principal = request.getUserPrincipal();
+        if (principal == null || waitingRoom.isValidToken(admissionToken(request), principal.getName())) {
+            return true;
+        }
+        response.sendRedirect(request.getContextPath() + "/waiting-room");
+        return false;
+    }
+    
+    private static String admissionToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (WaitingRoom.ADMISSION_COOKIE.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
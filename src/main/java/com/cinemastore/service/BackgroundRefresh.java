@@ -0,0 +1,42 @@
+package com.cinemastore.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Обновление индекса в памяти в отдельном потоке со слиянием запросов:
+ * пока задача стоит в очереди, повторные запросы не добавляют новых запусков.
+ * Запрос, пришедший во время выполнения, ставит ровно один следующий запуск.
+ */
+final class BackgroundRefresh {
+    
+    private final ExecutorService executor;
+    private final AtomicBoolean queued = new AtomicBoolean();
+    private final Runnable task;
+    
+    BackgroundRefresh(String threadName, Runnable task) {
+        this.task = task;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Запланировать запуск, если он еще не запланирован
+     */
+    void request() {
+        if (queued.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                queued.set(false);
+                task.run();
+            });
+        }
+    }
+    
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,202 @@
+package com.cinemastore.service;
+
+import com.cinemastore.entity.CatalogCleanupTarget;
+import com.cinemastore.entity.CatalogCleanupTask;
+import com.cinemastore.event.CatalogCleanupEvent;
+import com.cinemastore.event.GenreChangedEvent;
+import com.cinemastore.event.StudioChangedEvent;
+import com.cinemastore.repository.CatalogCleanupTaskRepository;
+import com.cinemastore.repository.GenreRepository;
+import com.cinemastore.repository.MovieRepository;
+import com.cinemastore.repository.StudioRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Фоновое удаление жанра или студии с фильмами.
+ * Запрос сохраняется задачей в catalog_cleanup_tasks в транзакции удаления (как outbox),
+ * поэтому не теряется при перезапуске или ошибке. Фильмы отвязываются от справочника
+ * короткими транзакциями по пачкам (один UPDATE на пачку), после чего запись справочника
+ * удаляется одним оператором вместе с отвязкой оставшихся фильмов и самой задачей.
+ * Задачу берет один экземпляр на время аренды; незавершенные задачи подбираются плановым опросом.
+ */
+@Service
+public class CatalogCleanup {
+    
+    private static final Logger log = LoggerFactory.getLogger(CatalogCleanup.class);
+    
+    private final MovieRepository movieRepository;
+    private final GenreRepository genreRepository;
+    private final StudioRepository studioRepository;
+    private final CatalogCleanupTaskRepository taskRepository;
+    private final CatalogCounts catalogCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int leaseSeconds;
+    private final int retryDelaySeconds;
+    
+    @Autowired
+    public CatalogCleanup(MovieRepository movieRepository,
+                          GenreRepository genreRepository,
+                          StudioRepository studioRepository,
+                          CatalogCleanupTaskRepository taskRepository,
+                          CatalogCounts catalogCounts,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${app.catalog.cleanup.batch-size:500}") int batchSize,
+                          @Value("${app.catalog.cleanup.lease-seconds:300}") int leaseSeconds,
+                          @Value("${app.catalog.cleanup.retry-delay-seconds:60}") int retryDelaySeconds) {
+        this.movieRepository = movieRepository;
+        this.genreRepository = genreRepository;
+        this.studioRepository = studioRepository;
+        this.taskRepository = taskRepository;
+        this.catalogCounts = catalogCounts;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.leaseSeconds = leaseSeconds;
+        this.retryDelaySeconds = retryDelaySeconds;
+    }
+    
+    /**
+     * Постановка удаления в очередь в текущей транзакции: задача видна обработчику
+     * только вместе с изменениями, сделанными при запросе удаления
+     */
+    public void enqueue(CatalogCleanupTarget target, Long id) {
+        if (taskRepository.existsByTargetAndTargetId(target, id)) {
+            return;
+        }
+        CatalogCleanupTask task = taskRepository.save(new CatalogCleanupTask(target, id));
+        eventPublisher.publishEvent(new CatalogCleanupEvent(task.getId()));
+    }
+    
+    @Async
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCleanupRequested(CatalogCleanupEvent event) {
+        processPending();
+    }
+    
+    /**
+     * Плановый опрос (и первый запуск при старте): продолжает задачи, прерванные
+     * перезапуском, и повторяет неудачные после паузы
+     */
+    @Scheduled(fixedDelayString = "${app.catalog.cleanup.poll-interval-ms:60000}")
+    public void processScheduled() {
+        processPending();
+    }
+    
+    /**
+     * Обработка свободных задач по одной до опустошения очереди
+     *
+     * @return количество завершенных задач
+     */
+    public int processPending() {
+        int completed = 0;
+        CatalogCleanupTask task;
+        while ((task = claimNext()) != null) {
+            if (process(task)) {
+                completed++;
+            }
+        }
+        return completed;
+    }
+    
+    private CatalogCleanupTask claimNext() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<CatalogCleanupTask> claimable = taskRepository.findClaimable(now, Limit.of(1));
+            if (claimable.isEmpty()) {
+                return null;
+            }
+            CatalogCleanupTask task = claimable.get(0);
+            taskRepository.claim(task.getId(), now.plusSeconds(leaseSeconds));
+            return task;
+        });
+    }
+    
+    private boolean process(CatalogCleanupTask task) {
+        Long id = task.getTargetId();
+        try {
+            int detached = switch (task.getTarget()) {
+                case GENRE -> detachAndDelete(task,
+                    limit -> movieRepository.findIdsByGenreId(id, limit),
+                    movieRepository::detachGenre,
+                    () -> {
+                        genreRepository.deleteGenreById(id);
+                        eventPublisher.publishEvent(new GenreChangedEvent(id));
+                    });
+                case STUDIO -> detachAndDelete(task,
+                    limit -> movieRepository.findIdsByStudioId(id, limit),
+                    movieRepository::detachStudio,
+                    () -> {
+                        studioRepository.deleteStudioById(id);
+                        eventPublisher.publishEvent(new StudioChangedEvent(id));
+                    });
+            };
+            catalogCounts.refresh();
+            log.info("Удаление справочника завершено: {} {}, отвязано фильмов: {}", task.getTarget(), id, detached);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("Не удалось завершить удаление справочника {} {} (попытка {}), задача будет повторена",
+                      task.getTarget(), id, task.getAttempts() + 1, e);
+            String error = String.valueOf(e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> taskRepository.recordFailure(task.getId(),
+                error.length() > 500 ? error.substring(0, 500) : error,
+                LocalDateTime.now().plusSeconds(retryDelaySeconds)));
+            return false;
+        }
+    }
+    
+    private int detachAndDelete(CatalogCleanupTask task, IdBatchLoader loader, BatchDetacher detacher,
+                                Runnable delete) {
+        int total = 0;
+        int detached;
+        do {
+            detached = transactionTemplate.execute(status -> {
+                // Продление аренды с каждой пачкой: длинная отвязка не отдается другому экземпляру
+                taskRepository.claim(task.getId(), LocalDateTime.now().plusSeconds(leaseSeconds));
+                List<Long> ids = loader.load(Limit.of(batchSize));
+                return ids.isEmpty() ? 0 : detacher.detach(ids, LocalDateTime.now());
+            });
+            total += detached;
+        } while (detached == batchSize);
+        
+        // Фильмы, привязанные к справочнику во время отвязки, отвязываются в транзакции удаления
+        total += transactionTemplate.execute(status -> {
+            int remaining = 0;
+            List<Long> ids;
+            while (!(ids = loader.load(Limit.of(batchSize))).isEmpty()) {
+                remaining += detacher.detach(ids, LocalDateTime.now());
+            }
+            delete.run();
+            taskRepository.deleteTaskById(task.getId());
+            return remaining;
+        });
+        return total;
+    }
+    
+    @FunctionalInterface
+    private interface IdBatchLoader {
+        List<Long> load(Limit limit);
+    }
+    
+    @FunctionalInterface
+    private interface BatchDetacher {
+        int detach(List<Long> ids, LocalDateTime now);
+    }
+}
@@ -0,0 +1,63 @@
+package com.cinemastore.service;
+
+import com.cinemastore.config.CacheConfig;
+import com.cinemastore.repository.MovieRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Количество фильмов по жанрам и студиям.
+ * Считается одним сгруппированным запросом на весь справочник и кэшируется;
+ * кэш сбрасывается при создании, изменении и удалении фильмов и периодически.
+ */
+@Service
+@Transactional(readOnly = true)
+public class CatalogCounts {
+    
+    private final MovieRepository movieRepository;
+    
+    @Autowired
+    public CatalogCounts(MovieRepository movieRepository) {
+        this.movieRepository = movieRepository;
+    }
+    
+    /**
+     * Количество фильмов по ID жанра
+     */
+    @Cacheable(CacheConfig.MOVIES_BY_GENRE)
+    public Map<Long, Long> moviesByGenre() {
+        return toMap(movieRepository.countGroupedByGenre());
+    }
+    
+    /**
+     * Количество фильмов по ID студии
+     */
+    @Cacheable(CacheConfig.MOVIES_BY_STUDIO)
+    public Map<Long, Long> moviesByStudio() {
+        return toMap(movieRepository.countGroupedByStudio());
+    }
+    
+    /**
+     * Периодический сброс: подхватывает изменения с других экземпляров
+     */
+    @Scheduled(fixedRateString = "${app.catalog.counts.refresh-ms:300000}")
+    @CacheEvict(value = {CacheConfig.MOVIES_BY_GENRE, CacheConfig.MOVIES_BY_STUDIO}, allEntries = true)
+    public void refresh() {
+    }
+    
+    private static Map<Long, Long> toMap(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return Map.copyOf(counts);
+    }
+}
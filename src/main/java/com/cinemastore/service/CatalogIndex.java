@@ -0,0 +1,454 @@
+package com.cinemastore.service;
+
+import com.cinemastore.dto.MovieFacets;
+import com.cinemastore.dto.MovieSummary;
+import com.cinemastore.event.CatalogChangedEvent;
+import com.cinemastore.event.GenreChangedEvent;
+import com.cinemastore.event.MovieChangedEvent;
+import com.cinemastore.event.StudioChangedEvent;
+import com.cinemastore.repository.MovieRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+/**
+ * Колоночный индекс каталога фильмов в памяти для фильтрации, сортировки и пагинации списка.
+ * Столбцы хранятся в примитивных массивах, жанры, студии и доступность - в битовых картах,
+ * порядок для каждого поля сортировки вычисляется заранее. Снимок неизменяем и подменяется
+ * целиком. Изменения применяются после коммита в фоновом потоке, а не в потоке запроса:
+ * измененные фильмы перечитываются построчно, и все изменения, накопившиеся за время
+ * сборки, попадают в одну следующую сборку снимка. До ее окончания список показывает
+ * предыдущий снимок. Точечные изменения не пересортировывают каталог: новый снимок собирается
+ * из предыдущего, столбцы и битовые карты копируются за O(n), а готовые порядки сортировки
+ * сливаются с отсортированными измененными строками за O(n + k log k). Переименование жанра
+ * или студии и массовые обновления по-прежнему перестраивают индекс целиком.
+ * Поиск по названию совпадает с запросом в БД: подстрока в нижнем регистре без подстановочных
+ * символов (% и _ ищутся буквально, см. SearchPatterns.contains).
+ * Пока индекс не загружен (холодный старт, ошибка), запросы идут в БД.
+ */
+@Service
+public class CatalogIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(CatalogIndex.class);
+    
+    private final MovieRepository movieRepository;
+    private final boolean enabled;
+    private final Map<Long, MovieSummary> rows = new HashMap<>();
+    private volatile Snapshot snapshot;
+    // Изменения, ожидающие фонового применения
+    private final Set<Long> changedMovies = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    private final BackgroundRefresh refresh = new BackgroundRefresh("catalog-index", this::applyPending);
+    
+    /**
+     * Страница результата: строки фильмов в порядке сортировки, общее количество и фасеты
+     */
+    public record Result(List<MovieSummary> movies, long total, MovieFacets facets) {}
+    
+    @Autowired
+    public CatalogIndex(MovieRepository movieRepository,
+                        @Value("${app.catalog.index.enabled:true}") boolean enabled) {
+        this.movieRepository = movieRepository;
+        this.enabled = enabled;
+    }
+    
+    public boolean isWarm() {
+        return snapshot != null;
+    }
+    
+    /**
+     * Фильтрация, сортировка, страница и фасеты по индексу (пусто - индекс холодный или сортировка не поддерживается)
+     */
+    public Optional<Result> query(String search, Long genreId, Long studioId,
+                                  BigDecimal minPrice, BigDecimal maxPrice,
+                                  Boolean available, Pageable pageable, long[] priceBucketBoundsCents) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(current.query(search, genreId, studioId, minPrice, maxPrice, available, pageable,
+                                                  priceBucketBoundsCents));
+    }
+    
+    /**
+     * Полная загрузка индекса из БД
+     *
+     * @return количество фильмов в индексе
+     */
+    public synchronized int rebuild() {
+        if (!enabled) {
+            return 0;
+        }
+        List<MovieSummary> loaded = ReadYourWrites.callPinned(true, movieRepository::findAllSummaries);
+        rows.clear();
+        for (MovieSummary row : loaded) {
+            rows.put(row.id(), row);
+        }
+        snapshot = Snapshot.build(rows.values());
+        log.debug("Индекс каталога построен: {} фильмов", rows.size());
+        return rows.size();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Не удалось построить индекс каталога при запуске, списки читаются из БД", e);
+        }
+    }
+    
+    /**
+     * Изменение одного фильма: в фоне перечитывается только его строка
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMovieChanged(MovieChangedEvent event) {
+        if (snapshot == null) {
+            return;
+        }
+        changedMovies.add(event.movieId());
+        refresh.request();
+    }
+    
+    /**
+     * Названия жанров и студий денормализованы в строки индекса: при их изменении индекс перестраивается
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onGenreChanged(GenreChangedEvent event) {
+        requestReload();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStudioChanged(StudioChangedEvent event) {
+        requestReload();
+    }
+    
+    /**
+     * Массовое обновление затрагивает произвольное число строк: индекс перестраивается целиком
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        requestReload();
+    }
+    
+    private void requestReload() {
+        if (snapshot == null) {
+            return;
+        }
+        reloadRequested.set(true);
+        refresh.request();
+    }
+    
+    /**
+     * Фоновое применение накопившихся изменений: полное перестроение, если оно запрошено,
+     * иначе перечитка измененных строк одним запросом и правка предыдущего снимка
+     */
+    private synchronized void applyPending() {
+        if (snapshot == null) {
+            changedMovies.clear();
+            reloadRequested.set(false);
+            return;
+        }
+        List<Long> ids = new ArrayList<>(changedMovies);
+        changedMovies.removeAll(ids);
+        try {
+            if (reloadRequested.getAndSet(false)) {
+                rebuild();
+                return;
+            }
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<MovieSummary> changed = ReadYourWrites.callPinned(true, () -> movieRepository.findSummariesByIds(ids));
+            ids.forEach(rows::remove);
+            for (MovieSummary row : changed) {
+                rows.put(row.id(), row);
+            }
+            snapshot = snapshot.patch(ids, changed);
+        } catch (RuntimeException e) {
+            // Устаревший индекс хуже медленного списка: до следующего перестроения читаем из БД
+            snapshot = null;
+            log.warn("Не удалось обновить индекс каталога после изменения: {}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refresh.shutdown();
+    }
+    
+    /**
+     * Периодическое перестроение: подхватывает изменения с других экземпляров и массовые обновления
+     */
+    @Scheduled(cron = "${app.catalog.index.rebuild-cron:0 */10 * * * *}")
+    public void rebuildScheduled() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось перестроить индекс каталога: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Неизменяемый снимок каталога
+     */
+    private static final class Snapshot {
+        
+        private static final int NULL_VALUE = Integer.MIN_VALUE;
+        
+        private final int size;
+        private final MovieSummary[] movies;
+        private final long[] ids;
+        private final int[] priceCents;
+        private final String[] lowerNames;
+        private final int[] genreOrdinals;
+        private final int[] studioOrdinals;
+        private final Map<Long, Integer> genreOrdinalById;
+        private final Map<Long, Integer> studioOrdinalById;
+        private final long[] genreIds;
+        private final long[] studioIds;
+        private final long[][] genreBitmaps;
+        private final long[][] studioBitmaps;
+        private final long[] availableBitmap;
+        private final Map<String, int[]> sortOrders = new HashMap<>();
+        
+        /**
+         * @param previous снимок, порядки сортировки которого переиспользуются (null - полная сортировка)
+         * @param positions позиция строки предыдущего снимка в новом (-1 - строка удалена или изменена)
+         * @param kept количество перенесенных строк: они занимают позиции [0, kept) в прежнем порядке
+         */
+        private Snapshot(List<MovieSummary> movies, Snapshot previous, int[] positions, int kept) {
+            size = movies.size();
+            this.movies = movies.toArray(new MovieSummary[0]);
+            ids = new long[size];
+            priceCents = new int[size];
+            lowerNames = new String[size];
+            genreOrdinals = new int[size];
+            studioOrdinals = new int[size];
+            genreOrdinalById = new HashMap<>();
+            studioOrdinalById = new HashMap<>();
+            int[] durations = new int[size];
+            int[] releaseDays = new int[size];
+            int[] ratings = new int[size];
+            
+            for (int i = 0; i < size; i++) {
+                MovieSummary movie = movies.get(i);
+                ids[i] = movie.id();
+                priceCents[i] = movie.price() != null
+                    ? (int) FacetCounter.toCents(movie.price(), RoundingMode.HALF_UP) : NULL_VALUE;
+                lowerNames[i] = movie.name() != null ? movie.name().toLowerCase(Locale.ROOT) : "";
+                genreOrdinals[i] = ordinal(genreOrdinalById, movie.genreId());
+                studioOrdinals[i] = ordinal(studioOrdinalById, movie.studioId());
+                durations[i] = movie.duration() != null ? movie.duration() : NULL_VALUE;
+                releaseDays[i] = movie.releaseDate() != null ? (int) movie.releaseDate().toEpochDay() : NULL_VALUE;
+                ratings[i] = movie.rating() != null
+                    ? movie.rating().movePointRight(2).setScale(0, RoundingMode.HALF_UP).intValue() : NULL_VALUE;
+            }
+            
+            genreIds = idsByOrdinal(genreOrdinalById);
+            studioIds = idsByOrdinal(studioOrdinalById);
+            int words = (size + 63) >>> 6;
+            genreBitmaps = new long[genreOrdinalById.size()][words];
+            studioBitmaps = new long[studioOrdinalById.size()][words];
+            availableBitmap = new long[words];
+            for (int i = 0; i < size; i++) {
+                if (genreOrdinals[i] >= 0) {
+                    genreBitmaps[genreOrdinals[i]][i >>> 6] |= 1L << i;
+                }
+                if (studioOrdinals[i] >= 0) {
+                    studioBitmaps[studioOrdinals[i]][i >>> 6] |= 1L << i;
+                }
+                if (movies.get(i).available()) {
+                    availableBitmap[i >>> 6] |= 1L << i;
+                }
+            }
+            
+            // Порядок как в PostgreSQL по умолчанию: NULL в конце при возрастании, в начале при убывании
+            Comparator<Integer> byId = Comparator.comparingLong(i -> ids[i]);
+            Map<String, Comparator<Integer>> comparators = new HashMap<>();
+            comparators.put("id", byId);
+            comparators.put("name", Comparator.<Integer, String>comparing(
+                i -> movies.get(i).name(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)).thenComparing(byId));
+            comparators.put("price", nullsLast(priceCents).thenComparing(byId));
+            comparators.put("duration", nullsLast(durations).thenComparing(byId));
+            comparators.put("releaseDate", nullsLast(releaseDays).thenComparing(byId));
+            comparators.put("rating", nullsLast(ratings).thenComparing(byId));
+            comparators.forEach((property, comparator) -> sortOrders.put(property, previous == null
+                ? order(comparator, 0)
+                : merge(comparator, carriedOrder(previous.sortOrders.get(property), positions, kept), order(comparator, kept))));
+        }
+        
+        static Snapshot build(Iterable<MovieSummary> movies) {
+            List<MovieSummary> list = new ArrayList<>();
+            movies.forEach(list::add);
+            return new Snapshot(list, null, null, 0);
+        }
+        
+        /**
+         * Новый снимок с замененными строками: неизмененные строки переносятся в прежнем порядке,
+         * перечитанные строки (изменения и новые фильмы) добавляются в конец, удаленных в changed нет
+         */
+        Snapshot patch(Collection<Long> changedIds, List<MovieSummary> changed) {
+            Set<Long> replaced = new HashSet<>(changedIds);
+            List<MovieSummary> list = new ArrayList<>(size + changed.size());
+            int[] positions = new int[size];
+            for (int i = 0; i < size; i++) {
+                if (replaced.contains(ids[i])) {
+                    positions[i] = -1;
+                } else {
+                    positions[i] = list.size();
+                    list.add(movies[i]);
+                }
+            }
+            int kept = list.size();
+            list.addAll(changed);
+            return new Snapshot(list, this, positions, kept);
+        }
+        
+        Result query(String search, Long genreId, Long studioId, BigDecimal minPrice, BigDecimal maxPrice,
+                     Boolean available, Pageable pageable, long[] priceBucketBoundsCents) {
+            String sortProperty = "id";
+            boolean descending = false;
+            if (pageable.getSort().isSorted()) {
+                List<Sort.Order> orders = pageable.getSort().toList();
+                if (orders.size() > 1) {
+                    return null;
+                }
+                sortProperty = orders.get(0).getProperty();
+                descending = orders.get(0).isDescending();
+            }
+            int[] order = sortOrders.get(sortProperty);
+            if (order == null) {
+                return null;
+            }
+            
+            long[] genreFilter = genreId != null ? bitmap(genreBitmaps, genreOrdinalById.get(genreId)) : null;
+            long[] studioFilter = studioId != null ? bitmap(studioBitmaps, studioOrdinalById.get(studioId)) : null;
+            long minCents = minPrice != null ? FacetCounter.toCents(minPrice, RoundingMode.CEILING) : Long.MIN_VALUE;
+            long maxCents = maxPrice != null ? FacetCounter.toCents(maxPrice, RoundingMode.FLOOR) : Long.MAX_VALUE;
+            boolean priceFilter = minPrice != null || maxPrice != null;
+            String needle = search != null ? search.toLowerCase(Locale.ROOT) : null;
+            
+            // Один проход в порядке сортировки: страница, общее количество и фасеты
+            FacetCounter facets = new FacetCounter(genreIds.length, studioIds.length, priceBucketBoundsCents);
+            long offset = pageable.getOffset();
+            int limit = pageable.getPageSize();
+            List<MovieSummary> page = new ArrayList<>(Math.min(limit, size));
+            long total = 0;
+            for (int k = 0; k < size; k++) {
+                int i = order[descending ? size - 1 - k : k];
+                if (needle != null && !lowerNames[i].contains(needle)) {
+                    continue;
+                }
+                boolean isAvailable = isSet(availableBitmap, i);
+                boolean hasPrice = priceCents[i] != NULL_VALUE;
+                boolean genreMatch = genreFilter == null || isSet(genreFilter, i);
+                boolean studioMatch = studioFilter == null || isSet(studioFilter, i);
+                boolean availableMatch = available == null || available == isAvailable;
+                boolean priceMatch = !priceFilter || hasPrice && priceCents[i] >= minCents && priceCents[i] <= maxCents;
+                facets.add(genreOrdinals[i], studioOrdinals[i], isAvailable,
+                           hasPrice ? priceCents[i] : FacetCounter.NO_PRICE,
+                           genreMatch, studioMatch, availableMatch, priceMatch, 1);
+                if (!(genreMatch && studioMatch && availableMatch && priceMatch)) {
+                    continue;
+                }
+                if (total >= offset && page.size() < limit) {
+                    page.add(movies[i]);
+                }
+                total++;
+            }
+            return new Result(page, total, facets.toFacets(genreIds, studioIds));
+        }
+        
+        private long[] bitmap(long[][] bitmaps, Integer ordinal) {
+            return ordinal != null ? bitmaps[ordinal] : new long[availableBitmap.length];
+        }
+        
+        private static boolean isSet(long[] bitmap, int i) {
+            return (bitmap[i >>> 6] & (1L << i)) != 0;
+        }
+        
+        private static long[] idsByOrdinal(Map<Long, Integer> ordinals) {
+            long[] result = new long[ordinals.size()];
+            ordinals.forEach((id, ordinal) -> result[ordinal] = id);
+            return result;
+        }
+        
+        private static int ordinal(Map<Long, Integer> ordinals, Long id) {
+            return id == null ? -1 : ordinals.computeIfAbsent(id, key -> ordinals.size());
+        }
+        
+        private static Comparator<Integer> nullsLast(int[] column) {
+            return (a, b) -> {
+                int x = column[a];
+                int y = column[b];
+                if (x == NULL_VALUE || y == NULL_VALUE) {
+                    return Boolean.compare(x == NULL_VALUE, y == NULL_VALUE);
+                }
+                return Integer.compare(x, y);
+            };
+        }
+        
+        /**
+         * Сортировка строк с позиции from до конца снимка
+         */
+        private int[] order(Comparator<Integer> comparator, int from) {
+            return IntStream.range(from, size).boxed().sorted(comparator).mapToInt(Integer::intValue).toArray();
+        }
+        
+        /**
+         * Порядок предыдущего снимка в позициях нового: значения перенесенных строк не менялись,
+         * поэтому их взаимный порядок остается верным
+         */
+        private static int[] carriedOrder(int[] previousOrder, int[] positions, int kept) {
+            int[] result = new int[kept];
+            int n = 0;
+            for (int old : previousOrder) {
+                if (positions[old] >= 0) {
+                    result[n++] = positions[old];
+                }
+            }
+            return result;
+        }
+        
+        private static int[] merge(Comparator<Integer> comparator, int[] left, int[] right) {
+            int[] result = new int[left.length + right.length];
+            int i = 0;
+            int j = 0;
+            for (int k = 0; k < result.length; k++) {
+                if (j >= right.length || i < left.length && comparator.compare(left[i], right[j]) <= 0) {
+                    result[k] = left[i++];
+                } else {
+                    result[k] = right[j++];
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.cinemastore.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Параллельное выполнение независимых запросов дашборда.
+ * Каждый запрос выполняется в собственной read-only транзакции на ограниченном пуле;
+ * таймаут запроса становится таймаутом транзакции, поэтому медленный оператор отменяется
+ * самой БД и не держит поток пула и соединение.
+ * При превышении таймаута или ошибке виджет получает значение по умолчанию,
+ * поэтому время построения страницы определяется самым медленным запросом, а не их суммой.
+ * Сущности из результатов отсоединены от сессии - ленивые связи нужно загружать в запросе.
+ */
+@Component
+public class DashboardComposer {
+    
+    private static final Logger log = LoggerFactory.getLogger(DashboardComposer.class);
+    
+    private final PlatformTransactionManager transactionManager;
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+    
+    @Autowired
+    public DashboardComposer(PlatformTransactionManager transactionManager,
+                             @Value("${app.dashboard.pool-size:8}") int poolSize,
+                             @Value("${app.dashboard.queue-capacity:64}") int queueCapacity,
+                             @Value("${app.dashboard.query-timeout-ms:3000}") long timeoutMillis) {
+        this.transactionManager = transactionManager;
+        this.timeoutMillis = timeoutMillis;
+        
+        AtomicInteger threadNumber = new AtomicInteger();
+        // При переполнении очереди запрос выполняется в потоке страницы - деградация до последовательного режима
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "dashboard-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    /**
+     * Новый набор запросов для одной страницы
+     */
+    public Composition compose() {
+        return new Composition();
+    }
+    
+    /**
+     * Read-only транзакция с таймаутом запроса (в секундах, с округлением вверх)
+     */
+    private TransactionTemplate readOnlyTransaction(long timeoutMillis) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        template.setTimeout((int) Math.max(1, (timeoutMillis + 999) / 1000));
+        return template;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+    
+    /**
+     * Набор запросов дашборда; результаты собираются в атрибуты модели
+     */
+    public final class Composition {
+        
+        private final Map<String, CompletableFuture<Object>> queries = new LinkedHashMap<>();
+        
+        private Composition() {}
+        
+        /**
+         * Добавление запроса с таймаутом по умолчанию
+         */
+        public <T> Composition add(String attribute, Supplier<T> query, T fallback) {
+            return add(attribute, query, fallback, timeoutMillis);
+        }
+        
+        /**
+         * Добавление запроса с собственным таймаутом
+         */
+        public <T> Composition add(String attribute, Supplier<T> query, T fallback, long timeoutMillis) {
+            // Признак чтения с основной БД (после покупки билета) переносится в поток пула
+            boolean pinnedToPrimary = ReadYourWrites.isPinnedToPrimary();
+            TransactionTemplate transaction = readOnlyTransaction(timeoutMillis);
+            CompletableFuture<Object> future = CompletableFuture
+                .supplyAsync(() -> ReadYourWrites.callPinned(pinnedToPrimary,
+                    () -> (Object) transaction.execute(status -> query.get())), executor)
+                .orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionally(ex -> {
+                    log.warn("Запрос дашборда '{}' не выполнен, используется значение по умолчанию: {}",
+                             attribute, ex.toString());
+                    return fallback;
+                });
+            queries.put(attribute, future);
+            return this;
+        }
+        
+        /**
+         * Ожидание всех запросов; ни один не ждет дольше своего таймаута
+         */
+        public Map<String, Object> join() {
+            Map<String, Object> results = new LinkedHashMap<>();
+            queries.forEach((attribute, future) -> results.put(attribute, future.join()));
+            return results;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.cinemastore.service;
+
+/**
+ * Нарушение уникальности при регистрации: имя пользователя или email уже заняты
+ */
+public class DuplicateUserException extends RuntimeException {
+    
+    private static final long serialVersionUID = 1L;
+    
+    public static final String USERNAME = "username";
+    public static final String EMAIL = "email";
+    
+    private final String field;
+    
+    public DuplicateUserException(String field, String message) {
+        super(message);
+        this.field = field;
+    }
+    
+    public static DuplicateUserException username() {
+        return new DuplicateUserException(USERNAME, "Пользователь с таким именем уже существует");
+    }
+    
+    public static DuplicateUserException email() {
+        return new DuplicateUserException(EMAIL, "Пользователь с таким email уже существует");
+    }
+    
+    /**
+     * Поле формы, к которому относится ошибка
+     */
+    public String getField() {
+        return field;
+    }
+}
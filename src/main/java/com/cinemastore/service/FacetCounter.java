@@ -0,0 +1,100 @@
+package com.cinemastore.service;
+
+import com.cinemastore.dto.MovieFacets;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Накопление фасетов за один проход по строкам каталога (индекс в памяти или сгруппированный запрос).
+ * Для каждой строки передается, каким фильтрам она удовлетворяет; строка учитывается в измерении,
+ * если проходит все фильтры, кроме фильтра этого измерения.
+ */
+final class FacetCounter {
+    
+    static final long NO_PRICE = Long.MIN_VALUE;
+    
+    private final long[] bucketBoundsCents;
+    private final long[] genreCounts;
+    private final long[] studioCounts;
+    private final long[] bucketCounts;
+    private long availableCount;
+    private long unavailableCount;
+    
+    FacetCounter(int genreCardinality, int studioCardinality, long[] bucketBoundsCents) {
+        this.bucketBoundsCents = bucketBoundsCents;
+        this.genreCounts = new long[genreCardinality];
+        this.studioCounts = new long[studioCardinality];
+        this.bucketCounts = new long[bucketBoundsCents.length + 1];
+    }
+    
+    /**
+     * Учет строки (ординалы < 0 - жанр или студия не заданы)
+     */
+    void add(int genreOrdinal, int studioOrdinal, boolean available, long priceCents,
+             boolean genreMatch, boolean studioMatch, boolean availableMatch, boolean priceMatch, long count) {
+        if (studioMatch && availableMatch && priceMatch && genreOrdinal >= 0) {
+            genreCounts[genreOrdinal] += count;
+        }
+        if (genreMatch && availableMatch && priceMatch && studioOrdinal >= 0) {
+            studioCounts[studioOrdinal] += count;
+        }
+        if (genreMatch && studioMatch && priceMatch) {
+            if (available) {
+                availableCount += count;
+            } else {
+                unavailableCount += count;
+            }
+        }
+        if (genreMatch && studioMatch && availableMatch && priceCents != NO_PRICE) {
+            bucketCounts[bucketOf(priceCents)] += count;
+        }
+    }
+    
+    MovieFacets toFacets(long[] genreIds, long[] studioIds) {
+        List<MovieFacets.PriceBucket> buckets = new ArrayList<>(bucketCounts.length);
+        for (int b = 0; b < bucketCounts.length; b++) {
+            BigDecimal from = b == 0 ? BigDecimal.ZERO : BigDecimal.valueOf(bucketBoundsCents[b - 1], 2);
+            BigDecimal to = b < bucketBoundsCents.length ? BigDecimal.valueOf(bucketBoundsCents[b], 2) : null;
+            buckets.add(new MovieFacets.PriceBucket(from, to, bucketCounts[b]));
+        }
+        return new MovieFacets(toMap(genreIds, genreCounts), toMap(studioIds, studioCounts),
+                               availableCount, unavailableCount, buckets);
+    }
+    
+    /**
+     * Цена в копейках с насыщением: фильтр с огромной границей не должен переполняться
+     */
+    static long toCents(BigDecimal value, RoundingMode rounding) {
+        BigDecimal cents = value.movePointRight(2).setScale(0, rounding);
+        if (cents.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0) {
+            return Integer.MAX_VALUE;
+        }
+        if (cents.compareTo(BigDecimal.valueOf(Integer.MIN_VALUE + 1L)) < 0) {
+            return Integer.MIN_VALUE + 1L;
+        }
+        return cents.longValue();
+    }
+    
+    private int bucketOf(long priceCents) {
+        int bucket = 0;
+        while (bucket < bucketBoundsCents.length && priceCents >= bucketBoundsCents[bucket]) {
+            bucket++;
+        }
+        return bucket;
+    }
+    
+    private static Map<Long, Long> toMap(long[] ids, long[] counts) {
+        Map<Long, Long> result = new HashMap<>();
+        for (int ordinal = 0; ordinal < counts.length; ordinal++) {
+            if (counts[ordinal] > 0) {
+                result.put(ids[ordinal], counts[ordinal]);
+            }
+        }
+        return result;
+    }
+}
@@ -1,8 +1,13 @@
 package com.cinemastore.service;
 
+import com.cinemastore.dto.GenreSummary;
+import com.cinemastore.entity.CatalogCleanupTarget;
 import com.cinemastore.entity.Genre;
+import com.cinemastore.event.GenreChangedEvent;
 import com.cinemastore.repository.GenreRepository;
+import com.cinemastore.repository.MovieRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -20,10 +25,17 @@ import java.util.Optional;
 public class GenreService {
     
     private final GenreRepository genreRepository;
+    private final MovieRepository movieRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogCleanup catalogCleanup;
     
     @Autowired
-    public GenreService(GenreRepository genreRepository) {
+    public GenreService(GenreRepository genreRepository, MovieRepository movieRepository,
+                        ApplicationEventPublisher eventPublisher, CatalogCleanup catalogCleanup) {
         this.genreRepository = genreRepository;
+        this.movieRepository = movieRepository;
+        this.eventPublisher = eventPublisher;
+        this.catalogCleanup = catalogCleanup;
     }
     
     /**
@@ -33,7 +45,9 @@ public class GenreService {
         if (genreRepository.existsByName(genre.getName())) {
             throw new RuntimeException("Жанр с таким названием уже существует");
         }
-        return genreRepository.save(genre);
+        Genre saved = genreRepository.save(genre);
+        eventPublisher.publishEvent(new GenreChangedEvent(saved.getId()));
+        return saved;
     }
     
     /**
@@ -53,25 +67,25 @@ public class GenreService {
     }
     
     /**
-     * Получение жанра с фильмами
+     * Получение всех жанров
      */
     @Transactional(readOnly = true)
-    public Optional<Genre> findByIdWithMovies(Long id) {
-        return genreRepository.findByIdWithMovies(id);
+    public List<Genre> findAll() {
+        return genreRepository.findAll(Sort.by(Sort.Direction.ASC, "name"));
     }
     
     /**
-     * Получение всех жанров
+     * Проекции всех жанров (для REST API)
      */
     @Transactional(readOnly = true)
-    public List<Genre> findAll() {
-        return genreRepository.findAll(Sort.by(Sort.Direction.ASC, "name"));
+    public List<GenreSummary> findAllSummaries() {
+        return genreRepository.findAllSummaries();
     }
     
     /**
      * Получение жанров с пагинацией
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.CATALOG_LIST)
     public Page<Genre> findAll(Pageable pageable) {
         return genreRepository.findAll(pageable);
     }
@@ -79,7 +93,7 @@ public class GenreService {
     /**
      * Поиск жанров по названию
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.CATALOG_LIST)
     public Page<Genre> searchByName(String search, Pageable pageable) {
         if (search == null || search.trim().isEmpty()) {
             return genreRepository.findAll(pageable);
@@ -103,21 +117,31 @@ public class GenreService {
         existingGenre.setName(updatedGenre.getName());
         existingGenre.setDescription(updatedGenre.getDescription());
         
-        return genreRepository.save(existingGenre);
+        Genre saved = genreRepository.save(existingGenre);
+        eventPublisher.publishEvent(new GenreChangedEvent(saved.getId()));
+        return saved;
     }
     
     /**
-     * Удаление жанра
+     * Удаление жанра: без фильмов - сразу одним оператором, с фильмами - в фоне
+     * (фильмы отвязываются от жанра пачками, затем жанр удаляется)
+     *
+     * @return количество фильмов, отвязываемых в фоне (0 - жанр уже удален)
      */
-    public void deleteGenre(Long id) {
-        Genre genre = genreRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Жанр не найден"));
+    public long deleteGenre(Long id) {
+        if (!genreRepository.existsById(id)) {
+            throw new RuntimeException("Жанр не найден");
+        }
         
-        if (genre.getMovies() != null && !genre.getMovies().isEmpty()) {
-            throw new RuntimeException("Невозможно удалить жанр с фильмами");
+        long movies = movieRepository.countByGenreId(id);
+        if (movies > 0) {
+            catalogCleanup.enqueue(CatalogCleanupTarget.GENRE, id);
+            return movies;
         }
         
-        genreRepository.deleteById(id);
+        genreRepository.deleteGenreById(id);
+        eventPublisher.publishEvent(new GenreChangedEvent(id));
+        return 0;
     }
     
     /**
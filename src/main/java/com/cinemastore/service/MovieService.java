@@ -1,18 +1,40 @@
 package com.cinemastore.service;
 
+import com.cinemastore.config.CacheConfig;
+import com.cinemastore.dto.BulkMovieUpdate;
+import com.cinemastore.dto.KeysetPage;
+import com.cinemastore.dto.MovieFacets;
+import com.cinemastore.dto.MovieSearchResult;
+import com.cinemastore.dto.MovieSummary;
 import com.cinemastore.entity.Genre;
 import com.cinemastore.entity.Movie;
 import com.cinemastore.entity.Studio;
+import com.cinemastore.event.CatalogChangedEvent;
+import com.cinemastore.event.MovieChangedEvent;
+import com.cinemastore.repository.GenreRepository;
 import com.cinemastore.repository.MovieRepository;
+import com.cinemastore.repository.StudioRepository;
+import com.cinemastore.repository.TicketArchiveRepository;
+import com.cinemastore.repository.TicketRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -22,18 +44,53 @@ import java.util.Optional;
 @Transactional
 public class MovieService {
     
+    private static final BigDecimal MIN_REPRICE_PERCENT = new BigDecimal("-90");
+    private static final BigDecimal MAX_REPRICE_PERCENT = new BigDecimal("300");
+    
     private final MovieRepository movieRepository;
+    private final TicketRepository ticketRepository;
+    private final TicketArchiveRepository ticketArchiveRepository;
+    private final GenreRepository genreRepository;
+    private final StudioRepository studioRepository;
+    private final CatalogIndex catalogIndex;
+    private final CatalogCounts catalogCounts;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long[] priceBucketBoundsCents;
     
     @Autowired
-    public MovieService(MovieRepository movieRepository) {
+    public MovieService(MovieRepository movieRepository,
+                        TicketRepository ticketRepository,
+                        TicketArchiveRepository ticketArchiveRepository,
+                        GenreRepository genreRepository,
+                        StudioRepository studioRepository,
+                        CatalogIndex catalogIndex,
+                        CatalogCounts catalogCounts,
+                        ApplicationEventPublisher eventPublisher,
+                        @Value("${app.catalog.facets.price-buckets:300,350,400}") BigDecimal[] priceBucketBounds) {
         this.movieRepository = movieRepository;
+        this.ticketRepository = ticketRepository;
+        this.ticketArchiveRepository = ticketArchiveRepository;
+        this.genreRepository = genreRepository;
+        this.studioRepository = studioRepository;
+        this.catalogIndex = catalogIndex;
+        this.catalogCounts = catalogCounts;
+        this.eventPublisher = eventPublisher;
+        this.priceBucketBoundsCents = Arrays.stream(priceBucketBounds)
+            .mapToLong(bound -> FacetCounter.toCents(bound, RoundingMode.HALF_UP))
+            .sorted()
+            .distinct()
+            .toArray();
     }
     
     /**
      * Создание нового фильма
      */
+    @CacheEvict(value = {CacheConfig.MOVIES_BY_GENRE, CacheConfig.MOVIES_BY_STUDIO}, allEntries = true)
     public Movie createMovie(Movie movie) {
-        return movieRepository.save(movie);
+        validateRunDates(movie);
+        Movie saved = movieRepository.save(movie);
+        eventPublisher.publishEvent(new MovieChangedEvent(saved.getId()));
+        return saved;
     }
     
     /**
@@ -52,6 +109,22 @@ public class MovieService {
         return movieRepository.findAll(Sort.by(Sort.Direction.ASC, "name"));
     }
     
+    /**
+     * Подборка фильмов для главной страницы зрителя (проекции с названием жанра)
+     */
+    @Transactional(readOnly = true)
+    public List<MovieSummary> findFeatured() {
+        return movieRepository.findSummariesOrderByName(Limit.of(8));
+    }
+    
+    /**
+     * Недоступные для продажи фильмы (первые по названию, с жанром)
+     */
+    @Transactional(readOnly = true)
+    public List<Movie> findUnavailablePreview() {
+        return movieRepository.findTop5ByAvailableFalseOrderByNameAsc();
+    }
+    
     /**
      * Получение фильмов с пагинацией
      */
@@ -76,6 +149,24 @@ public class MovieService {
         return movieRepository.findByGenre(genre, pageable);
     }
     
+    /**
+     * Список фильмов жанра (проекции без описания, количество - из кэша)
+     */
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.CATALOG_LIST)
+    public Page<MovieSummary> findSummariesByGenre(Long genreId, Pageable pageable) {
+        return new PageImpl<>(movieRepository.findSummariesByGenreId(genreId, pageable), pageable,
+                              catalogCounts.moviesByGenre().getOrDefault(genreId, 0L));
+    }
+    
+    /**
+     * Список фильмов студии (проекции без описания, количество - из кэша)
+     */
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.CATALOG_LIST)
+    public Page<MovieSummary> findSummariesByStudio(Long studioId, Pageable pageable) {
+        return new PageImpl<>(movieRepository.findSummariesByStudioId(studioId, pageable), pageable,
+                              catalogCounts.moviesByStudio().getOrDefault(studioId, 0L));
+    }
+    
     /**
      * Получение фильмов по студии
      */
@@ -115,34 +206,124 @@ public class MovieService {
     }
     
     /**
-     * Комплексный поиск с фильтрами
+     * Комплексный поиск с фильтрами и фасетами: отбор, сортировка, строки страницы и счетчики -
+     * по индексу каталога в памяти, без обращения к БД.
+     * При холодном индексе - запрос проекций с фильтрами и один сгруппированный запрос для фасетов.
+     */
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.CATALOG_LIST)
+    public MovieSearchResult findWithFilters(String search, Long genreId, Long studioId,
+                                             BigDecimal minPrice, BigDecimal maxPrice, 
+                                             Boolean available, Pageable pageable) {
+        Optional<CatalogIndex.Result> indexed = catalogIndex.query(search, genreId, studioId, minPrice, maxPrice,
+                                                                   available, pageable, priceBucketBoundsCents);
+        if (indexed.isPresent()) {
+            CatalogIndex.Result result = indexed.get();
+            return new MovieSearchResult(new PageImpl<>(result.movies(), pageable, result.total()),
+                                         result.facets());
+        }
+        
+        Page<MovieSummary> movies;
+        if (search == null && genreId == null && studioId == null
+            && minPrice == null && maxPrice == null && available == null) {
+            movies = movieRepository.findSummaries(pageable);
+        } else {
+            movies = movieRepository.findWithFilters(namePattern(search), genreId, studioId, 
+                                                     minPrice, maxPrice, available, pageable);
+        }
+        return new MovieSearchResult(movies, countFacets(search, genreId, studioId, minPrice, maxPrice, available));
+    }
+    
+    private MovieFacets countFacets(String search, Long genreId, Long studioId,
+                                    BigDecimal minPrice, BigDecimal maxPrice, Boolean available) {
+        List<Object[]> groups = movieRepository.countFacetGroups(namePattern(search));
+        Map<Long, Integer> genreOrdinals = new HashMap<>();
+        Map<Long, Integer> studioOrdinals = new HashMap<>();
+        for (Object[] group : groups) {
+            if (group[0] != null) {
+                genreOrdinals.putIfAbsent((Long) group[0], genreOrdinals.size());
+            }
+            if (group[1] != null) {
+                studioOrdinals.putIfAbsent((Long) group[1], studioOrdinals.size());
+            }
+        }
+        
+        long minCents = minPrice != null ? FacetCounter.toCents(minPrice, RoundingMode.CEILING) : Long.MIN_VALUE;
+        long maxCents = maxPrice != null ? FacetCounter.toCents(maxPrice, RoundingMode.FLOOR) : Long.MAX_VALUE;
+        FacetCounter counter = new FacetCounter(genreOrdinals.size(), studioOrdinals.size(), priceBucketBoundsCents);
+        for (Object[] group : groups) {
+            Long groupGenreId = (Long) group[0];
+            Long groupStudioId = (Long) group[1];
+            boolean groupAvailable = (Boolean) group[2];
+            long cents = group[3] != null
+                ? FacetCounter.toCents((BigDecimal) group[3], RoundingMode.HALF_UP) : FacetCounter.NO_PRICE;
+            counter.add(groupGenreId != null ? genreOrdinals.get(groupGenreId) : -1,
+                        groupStudioId != null ? studioOrdinals.get(groupStudioId) : -1,
+                        groupAvailable, cents,
+                        genreId == null || genreId.equals(groupGenreId),
+                        studioId == null || studioId.equals(groupStudioId),
+                        available == null || available == groupAvailable,
+                        minPrice == null && maxPrice == null
+                            || cents != FacetCounter.NO_PRICE && cents >= minCents && cents <= maxCents,
+                        (Long) group[4]);
+        }
+        return counter.toFacets(ids(genreOrdinals), ids(studioOrdinals));
+    }
+    
+    private static long[] ids(Map<Long, Integer> ordinals) {
+        long[] result = new long[ordinals.size()];
+        ordinals.forEach((id, ordinal) -> result[ordinal] = id);
+        return result;
+    }
+    
+    /**
+     * Поиск по названию - подстрока без подстановочных символов, как в индексе каталога
+     */
+    private static String namePattern(String search) {
+        return search != null ? SearchPatterns.contains(search) : null;
+    }
+    
+    /**
+     * Проекции фильмов с курсорной пагинацией (для REST API)
      */
     @Transactional(readOnly = true)
-    public Page<Movie> findWithFilters(String search, Long genreId, Long studioId,
-                                       BigDecimal minPrice, BigDecimal maxPrice, 
-                                       Boolean available, Pageable pageable) {
-        return movieRepository.findWithFilters(search, genreId, studioId, 
-                                               minPrice, maxPrice, available, pageable);
+    public KeysetPage<MovieSummary> findSummaries(long afterId, Long genreId, Long studioId,
+                                                  Boolean available, int limit) {
+        List<MovieSummary> items = movieRepository.findSummariesAfter(afterId, genreId, studioId,
+                                                                      available, Limit.of(limit));
+        return KeysetPage.of(items, limit, MovieSummary::id);
+    }
+    
+    /**
+     * Проекция фильма по ID (для REST API)
+     */
+    @Transactional(readOnly = true)
+    public Optional<MovieSummary> findSummaryById(Long id) {
+        return movieRepository.findSummaryById(id);
     }
     
     /**
      * Обновление фильма
      */
+    @CacheEvict(value = {CacheConfig.MOVIES_BY_GENRE, CacheConfig.MOVIES_BY_STUDIO}, allEntries = true)
     public Movie updateMovie(Long id, Movie updatedMovie) {
         Movie existingMovie = movieRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Фильм не найден"));
+        validateRunDates(updatedMovie);
         
         existingMovie.setName(updatedMovie.getName());
         existingMovie.setDescription(updatedMovie.getDescription());
         existingMovie.setPrice(updatedMovie.getPrice());
         existingMovie.setDuration(updatedMovie.getDuration());
         existingMovie.setReleaseDate(updatedMovie.getReleaseDate());
+        existingMovie.setEndOfRunDate(updatedMovie.getEndOfRunDate());
         existingMovie.setRating(updatedMovie.getRating());
         existingMovie.setGenre(updatedMovie.getGenre());
         existingMovie.setStudio(updatedMovie.getStudio());
         existingMovie.setAvailable(updatedMovie.isAvailable());
         
-        return movieRepository.save(existingMovie);
+        Movie saved = movieRepository.save(existingMovie);
+        eventPublisher.publishEvent(new MovieChangedEvent(id));
+        return saved;
     }
     
     /**
@@ -153,17 +334,112 @@ public class MovieService {
             .orElseThrow(() -> new RuntimeException("Фильм не найден"));
         
         movie.setAvailable(!movie.isAvailable());
-        return movieRepository.save(movie);
+        Movie saved = movieRepository.save(movie);
+        eventPublisher.publishEvent(new MovieChangedEvent(id));
+        return saved;
     }
     
     /**
      * Удаление фильма
      */
+    @CacheEvict(value = {CacheConfig.MOVIES_BY_GENRE, CacheConfig.MOVIES_BY_STUDIO}, allEntries = true)
     public void deleteMovie(Long id) {
-        if (!movieRepository.existsById(id)) {
+        // У архива нет внешних ключей: архивные билеты фильма учитываются явно
+        long tickets = ticketRepository.countByMovieId(id) + ticketArchiveRepository.countByMovieId(id);
+        if (tickets > 0) {
+            throw new RuntimeException("Невозможно удалить фильм: оформлено билетов - " + tickets);
+        }
+        if (movieRepository.deleteMovieById(id) == 0) {
             throw new RuntimeException("Фильм не найден");
         }
-        movieRepository.deleteById(id);
+        eventPublisher.publishEvent(new MovieChangedEvent(id));
+    }
+    
+    /**
+     * Количество фильмов, которые затронет массовая операция (предпросмотр):
+     * фильмы, уже имеющие нужную доступность, жанр или студию, не учитываются - как и в самой операции
+     */
+    @Transactional(readOnly = true)
+    public long previewBulkUpdate(BulkMovieUpdate update) {
+        validate(update);
+        return switch (update.action()) {
+            case REPRICE -> movieRepository.countByScope(update.genreId(), update.studioId());
+            case SET_AVAILABLE -> movieRepository.countAvailabilityChangesByScope(update.genreId(), update.studioId(),
+                update.available());
+            case REASSIGN_GENRE -> movieRepository.countGenreReassignmentsByScope(update.genreId(), update.studioId(),
+                update.targetGenreId());
+            case REASSIGN_STUDIO -> movieRepository.countStudioReassignmentsByScope(update.genreId(), update.studioId(),
+                update.targetStudioId());
+        };
+    }
+    
+    /**
+     * Массовая операция над фильмами жанра и/или студии одним оператором UPDATE
+     *
+     * @return количество измененных фильмов
+     */
+    @CacheEvict(value = {CacheConfig.MOVIES_BY_GENRE, CacheConfig.MOVIES_BY_STUDIO}, allEntries = true)
+    public int applyBulkUpdate(BulkMovieUpdate update) {
+        validate(update);
+        LocalDateTime now = LocalDateTime.now();
+        int updated = switch (update.action()) {
+            case REPRICE -> movieRepository.repriceByScope(update.genreId(), update.studioId(),
+                BigDecimal.ONE.add(update.percent().movePointLeft(2)), now);
+            case SET_AVAILABLE -> movieRepository.setAvailableByScope(update.genreId(), update.studioId(),
+                update.available(), now);
+            case REASSIGN_GENRE -> movieRepository.reassignGenreByScope(update.genreId(), update.studioId(),
+                genreRepository.findById(update.targetGenreId())
+                    .orElseThrow(() -> new RuntimeException("Жанр не найден")), now);
+            case REASSIGN_STUDIO -> movieRepository.reassignStudioByScope(update.genreId(), update.studioId(),
+                studioRepository.findById(update.targetStudioId())
+                    .orElseThrow(() -> new RuntimeException("Студия не найдена")), now);
+        };
+        if (updated > 0) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(updated));
+        }
+        return updated;
+    }
+    
+    private void validateRunDates(Movie movie) {
+        if (movie.getEndOfRunDate() != null && movie.getReleaseDate() != null
+            && movie.getEndOfRunDate().isBefore(movie.getReleaseDate())) {
+            throw new RuntimeException("Окончание проката не может быть раньше даты выхода");
+        }
+    }
+    
+    private void validate(BulkMovieUpdate update) {
+        if (update.genreId() == null && update.studioId() == null) {
+            throw new RuntimeException("Выберите жанр или студию");
+        }
+        if (update.action() == null) {
+            throw new RuntimeException("Выберите операцию");
+        }
+        switch (update.action()) {
+            case REPRICE -> {
+                if (update.percent() == null
+                    || update.percent().compareTo(MIN_REPRICE_PERCENT) < 0
+                    || update.percent().compareTo(MAX_REPRICE_PERCENT) > 0
+                    || update.percent().signum() == 0) {
+                    throw new RuntimeException("Изменение цены должно быть от " + MIN_REPRICE_PERCENT
+                                               + "% до " + MAX_REPRICE_PERCENT + "% и не равно нулю");
+                }
+            }
+            case SET_AVAILABLE -> {
+                if (update.available() == null) {
+                    throw new RuntimeException("Укажите доступность");
+                }
+            }
+            case REASSIGN_GENRE -> {
+                if (update.targetGenreId() == null) {
+                    throw new RuntimeException("Выберите новый жанр");
+                }
+            }
+            case REASSIGN_STUDIO -> {
+                if (update.targetStudioId() == null) {
+                    throw new RuntimeException("Выберите новую студию");
+                }
+            }
+        }
     }
     
     /**
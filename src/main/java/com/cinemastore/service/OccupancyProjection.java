@@ -0,0 +1,345 @@
+package com.cinemastore.service;
+
+import com.cinemastore.dto.ShowtimeOccupancy;
+import com.cinemastore.entity.Movie;
+import com.cinemastore.entity.TicketStatus;
+import com.cinemastore.event.TicketLifecycleEvent;
+import com.cinemastore.repository.MovieRepository;
+import com.cinemastore.repository.TicketOutboxRepository;
+import com.cinemastore.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Проекция заполняемости сеансов: число занятых мест по (фильм, сеанс).
+ * Обновляется инкрементально событиями из outbox, читается за O(1) без запросов к tickets.
+ * Каждый экземпляр читает outbox сам, собственным курсором по id, а не через ретранслятор
+ * (тот раздает каждое событие только одному экземпляру), поэтому счетчики всех экземпляров сходятся.
+ * Id выдаются при вставке, а транзакции фиксируются в другом порядке: курсор сдвигается только
+ * за события старше commit-grace-seconds, а события после курсора повторно читаются и
+ * пропускаются по множеству уже примененных id - повторное чтение не меняет счетчики.
+ * Событие из транзакции дольше commit-grace-seconds может быть пропущено до ночного перестроения.
+ * Полное перестроение - параллельные групповые запросы по диапазонам id фильмов;
+ * каждый диапазон читается в одном снимке REPEATABLE READ вместе с id событий после курсора,
+ * которые этот снимок уже учитывает: они считаются примененными.
+ */
+@Service
+public class OccupancyProjection {
+    
+    private static final Logger log = LoggerFactory.getLogger(OccupancyProjection.class);
+    
+    private final TicketRepository ticketRepository;
+    private final MovieRepository movieRepository;
+    private final TicketOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate snapshotTemplate;
+    private final int hallCapacity;
+    private final int rebuildParallelism;
+    private final int horizonDays;
+    private final int batchSize;
+    private final int commitGraceSeconds;
+    
+    private final Object lock = new Object();
+    private volatile ConcurrentHashMap<ShowtimeKey, LongAdder> counters = new ConcurrentHashMap<>();
+    // Все события с id не больше курсора учтены; -1 - проекция еще не построена
+    private long cursor = -1;
+    // Id событий после курсора, уже учтенных счетчиками (применены или входят в снимок перестроения)
+    private final Set<Long> appliedIds = new HashSet<>();
+    // События, пришедшие во время перестроения (null - перестроение не идет)
+    private List<TicketLifecycleEvent> pendingDuringRebuild;
+    
+    @Autowired
+    public OccupancyProjection(TicketRepository ticketRepository,
+                               MovieRepository movieRepository,
+                               TicketOutboxRepository outboxRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.occupancy.hall-capacity:100}") int hallCapacity,
+                               @Value("${app.occupancy.rebuild-parallelism:4}") int rebuildParallelism,
+                               @Value("${app.occupancy.horizon-days:1}") int horizonDays,
+                               @Value("${app.occupancy.batch-size:500}") int batchSize,
+                               @Value("${app.occupancy.commit-grace-seconds:60}") int commitGraceSeconds) {
+        this.ticketRepository = ticketRepository;
+        this.movieRepository = movieRepository;
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Снимок читается с основной БД (не read-only): outbox на реплике может отставать от билетов
+        this.snapshotTemplate = new TransactionTemplate(transactionManager);
+        this.snapshotTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.hallCapacity = hallCapacity;
+        this.rebuildParallelism = Math.max(1, rebuildParallelism);
+        this.horizonDays = horizonDays;
+        this.batchSize = batchSize;
+        this.commitGraceSeconds = commitGraceSeconds;
+    }
+    
+    /**
+     * Занятые места на сеансе
+     */
+    public long soldSeats(Long movieId, LocalDateTime showtime) {
+        LongAdder counter = counters.get(new ShowtimeKey(movieId, showtime));
+        return counter != null ? counter.sum() : 0;
+    }
+    
+    /**
+     * Процент проданных мест на сеансе (0-100)
+     */
+    public int occupancyPercent(Long movieId, LocalDateTime showtime) {
+        if (hallCapacity <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100, soldSeats(movieId, showtime) * 100 / hallCapacity);
+    }
+    
+    /**
+     * Заполняемость сеанса
+     */
+    public ShowtimeOccupancy occupancy(Long movieId, LocalDateTime showtime) {
+        return new ShowtimeOccupancy(movieId, null, showtime, soldSeats(movieId, showtime), hallCapacity);
+    }
+    
+    /**
+     * Ближайшие сеансы с проданными местами (для дашборда менеджера)
+     */
+    public List<ShowtimeOccupancy> findUpcoming(int limit) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Map.Entry<ShowtimeKey, Long>> upcoming = counters.entrySet().stream()
+            .filter(entry -> !entry.getKey().showtime().isBefore(now))
+            .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+            .filter(entry -> entry.getValue() > 0)
+            .sorted(Comparator.comparing((Map.Entry<ShowtimeKey, Long> entry) -> entry.getKey().showtime())
+                .thenComparing(entry -> entry.getKey().movieId()))
+            .limit(limit)
+            .toList();
+        
+        Map<Long, String> movieNames = movieRepository
+            .findAllById(upcoming.stream().map(entry -> entry.getKey().movieId()).distinct().toList())
+            .stream()
+            .collect(Collectors.toMap(Movie::getId, Movie::getName));
+        
+        List<ShowtimeOccupancy> result = new ArrayList<>(upcoming.size());
+        for (Map.Entry<ShowtimeKey, Long> entry : upcoming) {
+            ShowtimeKey key = entry.getKey();
+            result.add(new ShowtimeOccupancy(key.movieId(), movieNames.getOrDefault(key.movieId(), "-"),
+                                             key.showtime(), entry.getValue(), hallCapacity));
+        }
+        return result;
+    }
+    
+    /**
+     * Количество предстоящих сеансов с проданными местами
+     */
+    public long countUpcoming() {
+        LocalDateTime now = LocalDateTime.now();
+        return counters.entrySet().stream()
+            .filter(entry -> !entry.getKey().showtime().isBefore(now) && entry.getValue().sum() > 0)
+            .count();
+    }
+    
+    /**
+     * Инкрементальное обновление: чтение событий outbox после курсора.
+     * Уже примененные события пропускаются, затем курсор сдвигается за события старше commit-grace-seconds.
+     */
+    @Scheduled(fixedDelayString = "${app.occupancy.poll-interval-ms:1000}")
+    public void poll() {
+        long from;
+        synchronized (lock) {
+            if (cursor < 0) {
+                return;
+            }
+            from = cursor;
+        }
+        
+        LocalDateTime settledBefore = LocalDateTime.now().minusSeconds(commitGraceSeconds);
+        long settled = from;
+        long afterId = from;
+        List<TicketLifecycleEvent> batch;
+        do {
+            long after = afterId;
+            batch = transactionTemplate.execute(status -> outboxRepository.findAfter(after, Limit.of(batchSize))
+                .stream().map(TicketLifecycleEvent::from).toList());
+            synchronized (lock) {
+                for (TicketLifecycleEvent event : batch) {
+                    onTicketEvent(event);
+                }
+            }
+            for (TicketLifecycleEvent event : batch) {
+                if (event.occurredAt().isBefore(settledBefore)) {
+                    settled = event.eventId();
+                }
+                afterId = event.eventId();
+            }
+        } while (batch.size() == batchSize);
+        
+        synchronized (lock) {
+            if (settled > cursor) {
+                cursor = settled;
+                appliedIds.removeIf(id -> id <= cursor);
+            }
+        }
+    }
+    
+    /**
+     * Применение события, если оно еще не учтено; вызывается под lock
+     */
+    private void onTicketEvent(TicketLifecycleEvent event) {
+        if (event.eventId() <= cursor || !appliedIds.add(event.eventId())) {
+            return;
+        }
+        if (pendingDuringRebuild != null) {
+            pendingDuringRebuild.add(event);
+        }
+        apply(counters, event);
+    }
+    
+    private static void apply(ConcurrentHashMap<ShowtimeKey, LongAdder> target, TicketLifecycleEvent event) {
+        int delta = (event.occupiesSeat() ? 1 : 0) - (event.occupiedSeatBefore() ? 1 : 0);
+        if (delta != 0) {
+            target.computeIfAbsent(new ShowtimeKey(event.movieId(), event.showtime()), key -> new LongAdder())
+                .add(delta);
+        }
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Не удалось построить проекцию заполняемости при запуске", e);
+        }
+    }
+    
+    /**
+     * Ежедневное перестроение: убирает прошедшие сеансы и накопившееся расхождение
+     */
+    @Scheduled(cron = "${app.occupancy.rebuild-cron:0 0 5 * * *}")
+    public void rebuildScheduled() {
+        rebuild();
+    }
+    
+    /**
+     * Полное перестроение проекции по таблице билетов
+     *
+     * @return количество сеансов в проекции
+     */
+    public int rebuild() {
+        LocalDateTime startedAt;
+        long snapshotCursor;
+        synchronized (lock) {
+            if (pendingDuringRebuild != null) {
+                throw new RuntimeException("Перестроение заполняемости уже выполняется");
+            }
+            pendingDuringRebuild = new ArrayList<>();
+            startedAt = LocalDateTime.now();
+            snapshotCursor = cursor;
+        }
+        
+        ConcurrentHashMap<ShowtimeKey, LongAdder> rebuilt = new ConcurrentHashMap<>();
+        Set<Long> inSnapshot = new HashSet<>();
+        try {
+            if (snapshotCursor < 0) {
+                // Первое построение: события старше commit-grace-seconds зафиксированы до снимка
+                LocalDateTime settledBefore = startedAt.minusSeconds(commitGraceSeconds);
+                snapshotCursor = transactionTemplate.execute(status ->
+                    outboxRepository.findMaxIdCreatedBefore(settledBefore));
+            }
+            LocalDateTime since = startedAt.minusDays(horizonDays);
+            loadInParallel(rebuilt, inSnapshot, since, snapshotCursor);
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                pendingDuringRebuild = null;
+            }
+            throw e;
+        }
+        
+        synchronized (lock) {
+            // События, примененные во время перестроения и не вошедшие в снимок, переносятся на новую карту
+            for (TicketLifecycleEvent event : pendingDuringRebuild) {
+                if (!inSnapshot.contains(event.eventId())) {
+                    apply(rebuilt, event);
+                }
+            }
+            pendingDuringRebuild = null;
+            if (cursor < 0) {
+                cursor = snapshotCursor;
+            }
+            // Учтенные снимком события будут пропущены при чтении outbox
+            long settled = cursor;
+            inSnapshot.removeIf(id -> id <= settled);
+            appliedIds.addAll(inSnapshot);
+            counters = rebuilt;
+        }
+        log.info("Проекция заполняемости перестроена: сеансов {}", rebuilt.size());
+        return rebuilt.size();
+    }
+    
+    /**
+     * Параллельная загрузка по диапазонам id фильмов. Счетчики и id событий outbox диапазона
+     * читаются в одной транзакции REPEATABLE READ, т.е. из одного снимка: событие попадает
+     * в снимок ровно тогда, когда в нем видно изменение билета (они фиксируются вместе).
+     */
+    private void loadInParallel(ConcurrentHashMap<ShowtimeKey, LongAdder> target, Set<Long> inSnapshot,
+                                LocalDateTime since, long afterEventId) {
+        long maxMovieId = transactionTemplate.execute(status -> movieRepository.findMaxId());
+        if (maxMovieId == 0) {
+            return;
+        }
+        long chunk = (maxMovieId + rebuildParallelism - 1) / rebuildParallelism;
+        
+        ExecutorService executor = Executors.newFixedThreadPool(rebuildParallelism, runnable -> {
+            Thread thread = new Thread(runnable, "occupancy-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<ChunkSnapshot>> parts = new ArrayList<>();
+            for (long from = 1; from <= maxMovieId; from += chunk) {
+                long fromId = from;
+                long toId = Math.min(maxMovieId, from + chunk - 1);
+                parts.add(executor.submit(() -> snapshotTemplate.execute(status -> new ChunkSnapshot(
+                    ticketRepository.countOccupiedSeats(fromId, toId, since, TicketStatus.CANCELLED),
+                    outboxRepository.findIdsAfter(fromId, toId, afterEventId)))));
+            }
+            for (Future<ChunkSnapshot> part : parts) {
+                ChunkSnapshot snapshot = part.get();
+                inSnapshot.addAll(snapshot.eventIds());
+                for (Object[] row : snapshot.counts()) {
+                    LongAdder counter = new LongAdder();
+                    counter.add(((Number) row[2]).longValue());
+                    target.put(new ShowtimeKey((Long) row[0], (LocalDateTime) row[1]), counter);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Перестроение заполняемости прервано", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Ошибка перестроения заполняемости", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private record ShowtimeKey(long movieId, LocalDateTime showtime) {}
+    
+    private record ChunkSnapshot(List<Object[]> counts, List<Long> eventIds) {}
+}
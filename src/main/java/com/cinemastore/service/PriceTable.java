@@ -0,0 +1,153 @@
+package com.cinemastore.service;
+
+import com.cinemastore.entity.PricingRule;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Скомпилированные правила ценообразования: неизменяемые таблицы множителей
+ * в базисных пунктах (10000 = x1.0) по часу сеанса, дню недели, проценту заполняемости
+ * и ряду места. Расчет цены - несколько обращений к массивам и целочисленная арифметика
+ * в копейках, без запросов к БД. Итоговый множитель ограничен MAX_FACTOR. Цена на входе и выходе PricingEngine.quote - BigDecimal,
+ * а заполняемость читается по ключу сеанса, поэтому на каждый расчет создается
+ * несколько короткоживущих объектов.
+ */
+final class PriceTable {
+    
+    static final int ONE = 10_000;
+    
+    // Потолок итогового множителя (x100): наложение наценок до +500% не переполняет арифметику
+    static final int MAX_FACTOR = 100 * ONE;
+    
+    static final PriceTable EMPTY = compile(List.of());
+    
+    private final int[] hourFactors = new int[24];
+    private final int[] dayFactors = new int[7];
+    private final int[] occupancyFactors = new int[101];
+    private final int[] rowFactors = new int[26];
+    private final String[] promoCodes;
+    private final int[] promoFactors;
+    private final int ruleCount;
+    
+    private PriceTable(int promoCount, int ruleCount) {
+        Arrays.fill(hourFactors, ONE);
+        Arrays.fill(dayFactors, ONE);
+        Arrays.fill(occupancyFactors, ONE);
+        Arrays.fill(rowFactors, ONE);
+        this.promoCodes = new String[promoCount];
+        this.promoFactors = new int[promoCount];
+        this.ruleCount = ruleCount;
+    }
+    
+    /**
+     * Компиляция активных правил. Правила одного типа перемножаются, кроме заполняемости:
+     * для нее действует ступень с наибольшим достигнутым порогом.
+     */
+    static PriceTable compile(List<PricingRule> rules) {
+        List<PricingRule> promos = new ArrayList<>();
+        List<PricingRule> occupancyTiers = new ArrayList<>();
+        for (PricingRule rule : rules) {
+            switch (rule.getType()) {
+                case PROMO_CODE -> promos.add(rule);
+                case OCCUPANCY -> occupancyTiers.add(rule);
+                default -> { }
+            }
+        }
+        
+        PriceTable table = new PriceTable(promos.size(), rules.size());
+        for (PricingRule rule : rules) {
+            int factor = factor(rule.getAdjustmentPercent());
+            switch (rule.getType()) {
+                case TIME_OF_DAY -> {
+                    int start = rule.getStartHour();
+                    int end = rule.getEndHour();
+                    // Интервал через полночь (например, 22-2) задается началом больше конца
+                    for (int hour = 0; hour < 24; hour++) {
+                        boolean inRange = start < end ? hour >= start && hour < end : hour >= start || hour < end;
+                        if (inRange) {
+                            table.hourFactors[hour] = combine(table.hourFactors[hour], factor);
+                        }
+                    }
+                }
+                case WEEKDAY -> {
+                    int day = rule.getDayOfWeek().ordinal();
+                    table.dayFactors[day] = combine(table.dayFactors[day], factor);
+                }
+                case SEAT_CATEGORY -> {
+                    for (String row : rule.getSeatRows().split(",")) {
+                        int index = row.charAt(0) - 'A';
+                        table.rowFactors[index] = combine(table.rowFactors[index], factor);
+                    }
+                }
+                default -> { }
+            }
+        }
+        
+        occupancyTiers.sort((a, b) -> Integer.compare(a.getMinOccupancyPercent(), b.getMinOccupancyPercent()));
+        for (PricingRule tier : occupancyTiers) {
+            Arrays.fill(table.occupancyFactors, tier.getMinOccupancyPercent(), 101, factor(tier.getAdjustmentPercent()));
+        }
+        
+        for (int i = 0; i < promos.size(); i++) {
+            table.promoCodes[i] = promos.get(i).getPromoCode();
+            table.promoFactors[i] = factor(promos.get(i).getAdjustmentPercent());
+        }
+        return table;
+    }
+    
+    private static int factor(int adjustmentPercent) {
+        return (100 + adjustmentPercent) * (ONE / 100);
+    }
+    
+    private static int combine(int left, int right) {
+        return (int) clamp((long) left * right / ONE);
+    }
+    
+    private static long clamp(long factor) {
+        return Math.min(MAX_FACTOR, factor);
+    }
+    
+    /**
+     * Цена в копейках
+     *
+     * @param dayIndex         день недели (0 - понедельник)
+     * @param occupancyPercent процент проданных мест (0-100)
+     * @param seatRow          буква ряда или 0, если место не указано
+     * @param promoCode        промокод (заранее проверенный) или null
+     */
+    long priceCents(long baseCents, int hour, int dayIndex, int occupancyPercent, char seatRow, String promoCode) {
+        long factor = hourFactors[hour];
+        factor = clamp(factor * dayFactors[dayIndex] / ONE);
+        factor = clamp(factor * occupancyFactors[Math.max(0, Math.min(100, occupancyPercent))] / ONE);
+        if (seatRow >= 'A' && seatRow <= 'Z') {
+            factor = clamp(factor * rowFactors[seatRow - 'A'] / ONE);
+        }
+        int promoIndex = promoIndex(promoCode);
+        if (promoIndex >= 0) {
+            factor = clamp(factor * promoFactors[promoIndex] / ONE);
+        }
+        return Math.max(0, (baseCents * factor + ONE / 2) / ONE);
+    }
+    
+    boolean hasPromoCode(String promoCode) {
+        return promoIndex(promoCode) >= 0;
+    }
+    
+    private int promoIndex(String promoCode) {
+        if (promoCode == null) {
+            return -1;
+        }
+        for (int i = 0; i < promoCodes.length; i++) {
+            if (promoCodes[i].equalsIgnoreCase(promoCode)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    int ruleCount() {
+        return ruleCount;
+    }
+}
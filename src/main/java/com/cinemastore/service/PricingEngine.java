@@ -0,0 +1,95 @@
+package com.cinemastore.service;
+
+import com.cinemastore.event.PricingRulesChangedEvent;
+import com.cinemastore.repository.PricingRuleRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Расчет цены билета в момент бронирования.
+ * Правила из БД компилируются в неизменяемую таблицу множителей и подменяются атомарно
+ * после изменения правил менеджером; расчет цены не обращается к БД.
+ */
+@Service
+public class PricingEngine {
+    
+    private static final Logger log = LoggerFactory.getLogger(PricingEngine.class);
+    
+    private final PricingRuleRepository pricingRuleRepository;
+    private final OccupancyProjection occupancyProjection;
+    private final AtomicReference<PriceTable> table = new AtomicReference<>(PriceTable.EMPTY);
+    
+    @Autowired
+    public PricingEngine(PricingRuleRepository pricingRuleRepository,
+                         OccupancyProjection occupancyProjection) {
+        this.pricingRuleRepository = pricingRuleRepository;
+        this.occupancyProjection = occupancyProjection;
+    }
+    
+    /**
+     * Цена билета на сеанс с учетом действующих правил
+     */
+    public BigDecimal quote(BigDecimal basePrice, Long movieId, LocalDateTime showtime, String seat, String promoCode) {
+        PriceTable current = table.get();
+        String promo = promoCode != null && !promoCode.isBlank() ? promoCode.trim() : null;
+        if (promo != null && !current.hasPromoCode(promo)) {
+            throw new RuntimeException("Промокод не найден или не действует");
+        }
+        
+        char seatRow = seat != null && !seat.isEmpty() ? Character.toUpperCase(seat.charAt(0)) : 0;
+        long baseCents = basePrice.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        long cents = current.priceCents(baseCents,
+            showtime.getHour(),
+            showtime.getDayOfWeek().ordinal(),
+            occupancyProjection.occupancyPercent(movieId, showtime),
+            seatRow,
+            promo);
+        return BigDecimal.valueOf(cents, 2);
+    }
+    
+    /**
+     * Перекомпиляция правил из БД и атомарная подмена таблицы
+     */
+    public void reload() {
+        // Читаем с основной БД: реплика может еще не содержать только что сохраненное правило
+        PriceTable compiled = PriceTable.compile(
+            ReadYourWrites.callPinned(true, pricingRuleRepository::findByActiveTrueOrderByIdAsc));
+        table.set(compiled);
+        log.debug("Правила ценообразования загружены: {}", compiled.ruleCount());
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onRulesChanged(PricingRulesChangedEvent event) {
+        reload();
+    }
+    
+    /**
+     * Периодическая перезагрузка: подхватывает изменения, сделанные на других экземплярах
+     */
+    @Scheduled(fixedDelayString = "${app.pricing.refresh-interval-ms:60000}",
+               initialDelayString = "${app.pricing.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось перезагрузить правила ценообразования: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.cinemastore.service;
+
+import com.cinemastore.entity.PricingRule;
+import com.cinemastore.entity.PricingRuleType;
+import com.cinemastore.event.PricingRulesChangedEvent;
+import com.cinemastore.repository.PricingRuleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Сервис для работы с правилами ценообразования
+ */
+@Service
+@Transactional
+public class PricingRuleService {
+    
+    private final PricingRuleRepository pricingRuleRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    public PricingRuleService(PricingRuleRepository pricingRuleRepository,
+                              ApplicationEventPublisher eventPublisher) {
+        this.pricingRuleRepository = pricingRuleRepository;
+        this.eventPublisher = eventPublisher;
+    }
+    
+    /**
+     * Получение всех правил
+     */
+    @Transactional(readOnly = true)
+    public List<PricingRule> findAll() {
+        return pricingRuleRepository.findAllByOrderByTypeAscIdAsc();
+    }
+    
+    /**
+     * Получение правила по ID
+     */
+    @Transactional(readOnly = true)
+    public Optional<PricingRule> findById(Long id) {
+        return pricingRuleRepository.findById(id);
+    }
+    
+    /**
+     * Создание правила
+     */
+    public PricingRule createRule(PricingRule rule) {
+        normalize(rule);
+        if (rule.getType() == PricingRuleType.PROMO_CODE
+            && pricingRuleRepository.existsByPromoCodeIgnoreCase(rule.getPromoCode())) {
+            throw new RuntimeException("Такой промокод уже существует");
+        }
+        PricingRule saved = pricingRuleRepository.save(rule);
+        eventPublisher.publishEvent(new PricingRulesChangedEvent(saved.getId()));
+        return saved;
+    }
+    
+    /**
+     * Обновление правила
+     */
+    public PricingRule updateRule(Long id, PricingRule updatedRule) {
+        PricingRule rule = pricingRuleRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Правило не найдено"));
+        
+        normalize(updatedRule);
+        if (updatedRule.getType() == PricingRuleType.PROMO_CODE
+            && !updatedRule.getPromoCode().equalsIgnoreCase(rule.getPromoCode())
+            && pricingRuleRepository.existsByPromoCodeIgnoreCase(updatedRule.getPromoCode())) {
+            throw new RuntimeException("Такой промокод уже существует");
+        }
+        
+        rule.setName(updatedRule.getName());
+        rule.setType(updatedRule.getType());
+        rule.setAdjustmentPercent(updatedRule.getAdjustmentPercent());
+        rule.setStartHour(updatedRule.getStartHour());
+        rule.setEndHour(updatedRule.getEndHour());
+        rule.setDayOfWeek(updatedRule.getDayOfWeek());
+        rule.setMinOccupancyPercent(updatedRule.getMinOccupancyPercent());
+        rule.setSeatRows(updatedRule.getSeatRows());
+        rule.setPromoCode(updatedRule.getPromoCode());
+        rule.setActive(updatedRule.isActive());
+        
+        eventPublisher.publishEvent(new PricingRulesChangedEvent(id));
+        return pricingRuleRepository.save(rule);
+    }
+    
+    /**
+     * Включение/выключение правила
+     */
+    public PricingRule toggleActive(Long id) {
+        PricingRule rule = pricingRuleRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Правило не найдено"));
+        rule.setActive(!rule.isActive());
+        eventPublisher.publishEvent(new PricingRulesChangedEvent(id));
+        return pricingRuleRepository.save(rule);
+    }
+    
+    /**
+     * Удаление правила
+     */
+    public void deleteRule(Long id) {
+        if (!pricingRuleRepository.existsById(id)) {
+            throw new RuntimeException("Правило не найдено");
+        }
+        pricingRuleRepository.deleteById(id);
+        eventPublisher.publishEvent(new PricingRulesChangedEvent(id));
+    }
+    
+    /**
+     * Проверка условия правила и очистка полей, не относящихся к его типу
+     */
+    private void normalize(PricingRule rule) {
+        if (rule.getType() != PricingRuleType.TIME_OF_DAY) {
+            rule.setStartHour(null);
+            rule.setEndHour(null);
+        } else if (rule.getStartHour() == null || rule.getEndHour() == null
+                   || rule.getStartHour().equals(rule.getEndHour() % 24)) {
+            throw new RuntimeException("Укажите различающиеся часы начала и окончания");
+        }
+        
+        if (rule.getType() != PricingRuleType.WEEKDAY) {
+            rule.setDayOfWeek(null);
+        } else if (rule.getDayOfWeek() == null) {
+            throw new RuntimeException("Укажите день недели");
+        }
+        
+        if (rule.getType() != PricingRuleType.OCCUPANCY) {
+            rule.setMinOccupancyPercent(null);
+        } else if (rule.getMinOccupancyPercent() == null) {
+            throw new RuntimeException("Укажите порог заполняемости");
+        }
+        
+        if (rule.getType() != PricingRuleType.SEAT_CATEGORY) {
+            rule.setSeatRows(null);
+        } else {
+            String rows = rule.getSeatRows() != null
+                ? rule.getSeatRows().replaceAll("\\s+", "").toUpperCase(Locale.ROOT) : "";
+            if (!rows.matches("[A-Z](,[A-Z])*")) {
+                throw new RuntimeException("Ряды указываются латинскими буквами через запятую, например: A,B");
+            }
+            rule.setSeatRows(rows);
+        }
+        
+        if (rule.getType() != PricingRuleType.PROMO_CODE) {
+            rule.setPromoCode(null);
+        } else {
+            String code = rule.getPromoCode() != null ? rule.getPromoCode().trim().toUpperCase(Locale.ROOT) : "";
+            if (code.isEmpty()) {
+                throw new RuntimeException("Укажите промокод");
+            }
+            rule.setPromoCode(code);
+        }
+    }
+}
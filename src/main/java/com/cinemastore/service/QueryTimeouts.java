@@ -0,0 +1,29 @@
+package com.cinemastore.service;
+
+/**
+ * Таймауты транзакций запросов (по истечении Hibernate отменяет оператор через JDBC).
+ * Для каждой группы страниц задается свое свойство; если оно не задано, действует общее
+ * app.query.list-timeout-seconds.
+ */
+public final class QueryTimeouts {
+    
+    /**
+     * Публичные списки каталога: фильмы с фильтрами, фильмы жанра и студии, жанры и студии
+     */
+    public static final String CATALOG_LIST =
+        "${app.query.catalog-list-timeout-seconds:${app.query.list-timeout-seconds:5}}";
+    
+    /**
+     * Списки и поиск билетов
+     */
+    public static final String TICKET_SEARCH =
+        "${app.query.ticket-search-timeout-seconds:${app.query.list-timeout-seconds:5}}";
+    
+    /**
+     * Списки администратора: пользователи по ролям и поиск пользователей
+     */
+    public static final String ADMIN_LIST =
+        "${app.query.admin-list-timeout-seconds:${app.query.list-timeout-seconds:5}}";
+    
+    private QueryTimeouts() {}
+}
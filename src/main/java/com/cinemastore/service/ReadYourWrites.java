@@ -0,0 +1,99 @@
+package com.cinemastore.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.function.Supplier;
+
+/**
+ * Чтение собственных записей: после покупки билета запросы пользователя
+ * в течение заданного окна читают с основной БД, а не с отстающей реплики.
+ * Срок хранится в HTTP-сессии. Признак для текущего потока действует только внутри
+ * области - HTTP-запроса (ReadYourWritesFilter) или callPinned - и снимается при ее закрытии,
+ * поэтому запись из планировщика или пула не закрепляет поток за основной БД навсегда.
+ */
+@Component
+public class ReadYourWrites {
+    
+    public static final String SESSION_ATTRIBUTE = ReadYourWrites.class.getName() + ".primaryUntil";
+    
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+    
+    private final long windowMillis;
+    
+    public ReadYourWrites(@Value("${app.datasource.read-your-writes-seconds:10}") long windowSeconds) {
+        this.windowMillis = windowSeconds * 1000;
+    }
+    
+    /**
+     * Нужно ли текущему потоку читать с основной БД
+     */
+    public static boolean isPinnedToPrimary() {
+        Scope scope = SCOPE.get();
+        return scope != null && scope.pinned;
+    }
+    
+    /**
+     * Открытие области для текущего потока; закрывается в try-with-resources
+     */
+    public static Scope open(boolean pinned) {
+        Scope scope = new Scope(SCOPE.get(), pinned);
+        SCOPE.set(scope);
+        return scope;
+    }
+    
+    /**
+     * Выполнение действия с признаком чтения с основной БД (для фоновых потоков запроса)
+     */
+    public static <T> T callPinned(boolean pinned, Supplier<T> action) {
+        if (!pinned) {
+            return action.get();
+        }
+        try (Scope ignored = open(true)) {
+            return action.get();
+        }
+    }
+    
+    /**
+     * Отметка о записи: последующие чтения в текущей области и в сессии пользователя
+     * идут на основную БД. Вне области и вне HTTP-запроса ничего не запоминается.
+     */
+    public void markWrite() {
+        for (Scope scope = SCOPE.get(); scope != null; scope = scope.previous) {
+            scope.pinned = true;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(SESSION_ATTRIBUTE, System.currentTimeMillis() + windowMillis,
+                                    RequestAttributes.SCOPE_SESSION);
+        }
+    }
+    
+    /**
+     * Область действия признака; при закрытии восстанавливается внешняя область
+     */
+    public static final class Scope implements AutoCloseable {
+        
+        private final Scope previous;
+        private boolean pinned;
+        
+        private Scope(Scope previous, boolean pinned) {
+            this.previous = previous;
+            this.pinned = pinned;
+        }
+        
+        @Override
+        public void close() {
+            if (SCOPE.get() != this) {
+                return;
+            }
+            if (previous == null) {
+                SCOPE.remove();
+            } else {
+                SCOPE.set(previous);
+            }
+        }
+    }
+}
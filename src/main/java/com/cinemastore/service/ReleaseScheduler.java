@@ -0,0 +1,118 @@
+package com.cinemastore.service;
+
+import com.cinemastore.entity.SchedulerMarker;
+import com.cinemastore.event.CatalogChangedEvent;
+import com.cinemastore.repository.MovieRepository;
+import com.cinemastore.repository.SchedulerMarkerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Доступность фильмов по датам проката: в день выхода фильм становится доступным,
+ * после последнего дня проката — недоступным.
+ * Последний обработанный день хранится в БД (scheduler_markers) и сдвигается в той же транзакции,
+ * что и UPDATE фильмов, поэтому каждый день обрабатывается один раз — и после перезапуска,
+ * и при нескольких экземплярах. Ручное переключение доступности (MovieController.toggleAvailable)
+ * после обработки дня не перезаписывается.
+ */
+@Service
+public class ReleaseScheduler {
+    
+    private static final Logger log = LoggerFactory.getLogger(ReleaseScheduler.class);
+    
+    private static final String MARKER = "catalog-release";
+    
+    private final MovieRepository movieRepository;
+    private final SchedulerMarkerRepository markerRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int catchUpDays;
+    
+    @Autowired
+    public ReleaseScheduler(MovieRepository movieRepository,
+                            SchedulerMarkerRepository markerRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.catalog.release.enabled:true}") boolean enabled,
+                            @Value("${app.catalog.release.catch-up-days:1}") int catchUpDays) {
+        this.movieRepository = movieRepository;
+        this.markerRepository = markerRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.catchUpDays = Math.max(catchUpDays, 1);
+    }
+    
+    /**
+     * Плановый запуск (по умолчанию сразу после полуночи), а также при старте — догоняет
+     * только дни после сохраненной отметки; если они уже обработаны, ничего не меняет
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${app.catalog.release.cron:0 5 0 * * *}")
+    public void applyScheduled() {
+        if (enabled) {
+            applyThrough(LocalDate.now());
+        }
+    }
+    
+    /**
+     * Выход в прокат и снятие с проката за дни после сохраненной отметки по указанный день.
+     * Без отметки (первый запуск) обрабатываются последние catch-up-days дней.
+     *
+     * @return количество фильмов, у которых изменилась доступность
+     */
+    public int applyThrough(LocalDate today) {
+        createMarkerIfAbsent(today.minusDays(catchUpDays));
+        return transactionTemplate.execute(status -> {
+            SchedulerMarker marker = markerRepository.findForUpdate(MARKER)
+                .orElseThrow(() -> new IllegalStateException("Отметка планировщика не найдена: " + MARKER));
+            LocalDate lastDay = marker.getProcessedThrough();
+            if (!today.isAfter(lastDay)) {
+                return 0;
+            }
+            
+            LocalDateTime now = LocalDateTime.now();
+            int changed = movieRepository.activateReleased(lastDay.plusDays(1), today, now)
+                + movieRepository.deactivateEndedRun(lastDay, today, now);
+            marker.setProcessedThrough(today);
+            if (changed > 0) {
+                // Одно событие на весь запуск: индексы каталога перестраиваются один раз после коммита
+                eventPublisher.publishEvent(new CatalogChangedEvent(changed));
+                log.info("Доступность фильмов по датам проката изменена: {} (дни {} - {})",
+                    changed, lastDay.plusDays(1), today);
+            }
+            return changed;
+        });
+    }
+    
+    /**
+     * Отметка первого запуска создается отдельной транзакцией: при одновременном старте нескольких
+     * экземпляров вставка удается одному, остальные получают нарушение первичного ключа и дальше
+     * ждут блокировку уже существующей строки
+     */
+    private void createMarkerIfAbsent(LocalDate processedThrough) {
+        if (markerRepository.existsById(MARKER)) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                markerRepository.insert(MARKER, processedThrough, LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Отметку {} одновременно создал другой экземпляр", MARKER);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.cinemastore.service;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Подготовка поисковых строк: шаблон LIKE по подстроке в нижнем регистре
+ * (совпадает с выражением триграммных индексов lower(col)) и распознавание
+ * точных значений, которые ищутся по уникальному индексу.
+ */
+final class SearchPatterns {
+    
+    // Формат Ticket.newTicketNumberPrefix() с номером места в группе; номера, выданные до случайного суффикса, - тоже
+    private static final Pattern TICKET_NUMBER = Pattern.compile("(?i)TKT-\\d+(-[0-9A-F]{8})?(-\\d+)?");
+    private static final Pattern EMAIL = Pattern.compile("[^@\\s]+@[^@\\s]+\\.[^@\\s]+");
+    
+    private SearchPatterns() {}
+    
+    /**
+     * Шаблон "%подстрока%" для LIKE ... ESCAPE '\'
+     */
+    static String contains(String search) {
+        String escaped = search.toLowerCase(Locale.ROOT)
+            .replace("\\", "\\\\")
+            .replace("%", "\\%")
+            .replace("_", "\\_");
+        return "%" + escaped + "%";
+    }
+    
+    static boolean isTicketNumber(String search) {
+        return TICKET_NUMBER.matcher(search).matches();
+    }
+    
+    static boolean isEmail(String search) {
+        return EMAIL.matcher(search).matches();
+    }
+}
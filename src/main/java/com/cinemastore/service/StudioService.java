@@ -1,8 +1,13 @@
 package com.cinemastore.service;
 
+import com.cinemastore.dto.StudioSummary;
+import com.cinemastore.entity.CatalogCleanupTarget;
 import com.cinemastore.entity.Studio;
+import com.cinemastore.event.StudioChangedEvent;
+import com.cinemastore.repository.MovieRepository;
 import com.cinemastore.repository.StudioRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -20,10 +25,17 @@ import java.util.Optional;
 public class StudioService {
     
     private final StudioRepository studioRepository;
+    private final MovieRepository movieRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogCleanup catalogCleanup;
     
     @Autowired
-    public StudioService(StudioRepository studioRepository) {
+    public StudioService(StudioRepository studioRepository, MovieRepository movieRepository,
+                         ApplicationEventPublisher eventPublisher, CatalogCleanup catalogCleanup) {
         this.studioRepository = studioRepository;
+        this.movieRepository = movieRepository;
+        this.eventPublisher = eventPublisher;
+        this.catalogCleanup = catalogCleanup;
     }
     
     /**
@@ -33,7 +45,9 @@ public class StudioService {
         if (studioRepository.existsByCompanyName(studio.getCompanyName())) {
             throw new RuntimeException("Студия с таким названием уже существует");
         }
-        return studioRepository.save(studio);
+        Studio saved = studioRepository.save(studio);
+        eventPublisher.publishEvent(new StudioChangedEvent(saved.getId()));
+        return saved;
     }
     
     /**
@@ -63,7 +77,7 @@ public class StudioService {
     /**
      * Получение студий с пагинацией
      */
-    @Transactional(readOnly = true)
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.CATALOG_LIST)
     public Page<Studio> findAll(Pageable pageable) {
         return studioRepository.findAll(pageable);
     }
@@ -77,9 +91,17 @@ public class StudioService {
     }
     
     /**
-     * Поиск студий
+     * Проекции активных студий (для REST API)
      */
     @Transactional(readOnly = true)
+    public List<StudioSummary> findActiveSummaries() {
+        return studioRepository.findActiveSummaries();
+    }
+    
+    /**
+     * Поиск студий
+     */
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.CATALOG_LIST)
     public Page<Studio> searchStudios(String search, Pageable pageable) {
         if (search == null || search.trim().isEmpty()) {
             return studioRepository.findAll(pageable);
@@ -107,7 +129,9 @@ public class StudioService {
         existingStudio.setAddress(updatedStudio.getAddress());
         existingStudio.setDescription(updatedStudio.getDescription());
         
-        return studioRepository.save(existingStudio);
+        Studio saved = studioRepository.save(existingStudio);
+        eventPublisher.publishEvent(new StudioChangedEvent(saved.getId()));
+        return saved;
     }
     
     /**
@@ -118,21 +142,33 @@ public class StudioService {
             .orElseThrow(() -> new RuntimeException("Студия не найдена"));
         
         studio.setActive(!studio.isActive());
-        return studioRepository.save(studio);
+        Studio saved = studioRepository.save(studio);
+        eventPublisher.publishEvent(new StudioChangedEvent(saved.getId()));
+        return saved;
     }
     
     /**
-     * Удаление студии
+     * Удаление студии: без фильмов - сразу одним оператором, с фильмами - студия скрывается,
+     * фильмы отвязываются от нее в фоне пачками, затем студия удаляется
+     *
+     * @return количество фильмов, отвязываемых в фоне (0 - студия уже удалена)
      */
-    public void deleteStudio(Long id) {
-        Studio studio = studioRepository.findById(id)
-            .orElseThrow(() -> new RuntimeException("Студия не найдена"));
+    public long deleteStudio(Long id) {
+        if (!studioRepository.existsById(id)) {
+            throw new RuntimeException("Студия не найдена");
+        }
         
-        if (studio.getMovies() != null && !studio.getMovies().isEmpty()) {
-            throw new RuntimeException("Невозможно удалить студию с фильмами");
+        long movies = movieRepository.countByStudioId(id);
+        if (movies > 0) {
+            studioRepository.deactivate(id);
+            eventPublisher.publishEvent(new StudioChangedEvent(id));
+            catalogCleanup.enqueue(CatalogCleanupTarget.STUDIO, id);
+            return movies;
         }
         
-        studioRepository.deleteById(id);
+        studioRepository.deleteStudioById(id);
+        eventPublisher.publishEvent(new StudioChangedEvent(id));
+        return 0;
     }
     
     /**
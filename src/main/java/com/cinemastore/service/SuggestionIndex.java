@@ -0,0 +1,241 @@
+package com.cinemastore.service;
+
+import com.cinemastore.dto.MovieSummary;
+import com.cinemastore.dto.StudioSummary;
+import com.cinemastore.dto.Suggestion;
+import com.cinemastore.entity.Genre;
+import com.cinemastore.entity.Studio;
+import com.cinemastore.event.CatalogChangedEvent;
+import com.cinemastore.event.GenreChangedEvent;
+import com.cinemastore.event.MovieChangedEvent;
+import com.cinemastore.event.StudioChangedEvent;
+import com.cinemastore.repository.GenreRepository;
+import com.cinemastore.repository.MovieRepository;
+import com.cinemastore.repository.StudioRepository;
+import com.cinemastore.repository.TicketRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Подсказки поиска по названиям фильмов, жанров и студий без обращения к БД.
+ * Вес фильма - число проданных билетов, жанра и студии - число фильмов; веса пересчитываются
+ * при полном перестроении, а изменения названий применяются после коммита построчно
+ * в фоновом потоке: все изменения, накопившиеся за время сборки дерева, попадают
+ * в одну следующую сборку, и поток запроса дерево не строит.
+ */
+@Service
+public class SuggestionIndex {
+    
+    private static final Logger log = LoggerFactory.getLogger(SuggestionIndex.class);
+    
+    private final MovieRepository movieRepository;
+    private final GenreRepository genreRepository;
+    private final StudioRepository studioRepository;
+    private final TicketRepository ticketRepository;
+    private final int topK;
+    
+    private final Map<String, SuggestionTrie.Entry> entries = new HashMap<>();
+    private volatile SuggestionTrie trie = SuggestionTrie.EMPTY;
+    // Изменения, ожидающие фонового применения
+    private final Set<Change> changes = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    private final BackgroundRefresh refresh = new BackgroundRefresh("suggestion-index", this::applyPending);
+    
+    private record Change(Suggestion.Type type, Long id) {}
+    
+    @Autowired
+    public SuggestionIndex(MovieRepository movieRepository,
+                           GenreRepository genreRepository,
+                           StudioRepository studioRepository,
+                           TicketRepository ticketRepository,
+                           @Value("${app.suggest.top-k:10}") int topK) {
+        this.movieRepository = movieRepository;
+        this.genreRepository = genreRepository;
+        this.studioRepository = studioRepository;
+        this.ticketRepository = ticketRepository;
+        this.topK = Math.max(1, topK);
+    }
+    
+    /**
+     * Подсказки для введенного префикса (начало любого слова названия)
+     */
+    public List<Suggestion> suggest(String prefix, int limit) {
+        if (prefix == null) {
+            return List.of();
+        }
+        return trie.lookup(prefix, Math.min(limit, topK));
+    }
+    
+    /**
+     * Полное перестроение с пересчетом популярности
+     *
+     * @return количество записей
+     */
+    public synchronized int rebuild() {
+        Map<String, SuggestionTrie.Entry> loaded = ReadYourWrites.callPinned(true, () -> {
+            Map<Long, Long> ticketCounts = toCounts(ticketRepository.countTicketsByMovie());
+            Map<Long, Long> genreCounts = new HashMap<>();
+            Map<Long, Long> studioCounts = new HashMap<>();
+            Map<String, SuggestionTrie.Entry> result = new HashMap<>();
+            for (MovieSummary movie : movieRepository.findAllSummaries()) {
+                put(result, Suggestion.Type.MOVIE, movie.id(), movie.name(), ticketCounts.getOrDefault(movie.id(), 0L));
+                if (movie.genreId() != null) {
+                    genreCounts.merge(movie.genreId(), 1L, Long::sum);
+                }
+                if (movie.studioId() != null) {
+                    studioCounts.merge(movie.studioId(), 1L, Long::sum);
+                }
+            }
+            genreRepository.findAllSummaries().forEach(genre ->
+                put(result, Suggestion.Type.GENRE, genre.id(), genre.name(), genreCounts.getOrDefault(genre.id(), 0L)));
+            for (StudioSummary studio : studioRepository.findActiveSummaries()) {
+                put(result, Suggestion.Type.STUDIO, studio.id(), studio.companyName(),
+                    studioCounts.getOrDefault(studio.id(), 0L));
+            }
+            return result;
+        });
+        entries.clear();
+        entries.putAll(loaded);
+        trie = SuggestionTrie.build(entries.values(), topK);
+        log.debug("Индекс подсказок построен: {} записей", trie.size());
+        return trie.size();
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Не удалось построить индекс подсказок при запуске", e);
+        }
+    }
+    
+    /**
+     * Периодическое перестроение: популярность и изменения с других экземпляров
+     */
+    @Scheduled(cron = "${app.suggest.rebuild-cron:0 */15 * * * *}")
+    public void rebuildScheduled() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось перестроить индекс подсказок: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Массовое перемещение фильмов меняет веса жанров и студий
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        reloadRequested.set(true);
+        refresh.request();
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onMovieChanged(MovieChangedEvent event) {
+        requestChange(Suggestion.Type.MOVIE, event.movieId());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onGenreChanged(GenreChangedEvent event) {
+        requestChange(Suggestion.Type.GENRE, event.genreId());
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onStudioChanged(StudioChangedEvent event) {
+        requestChange(Suggestion.Type.STUDIO, event.studioId());
+    }
+    
+    private void requestChange(Suggestion.Type type, Long id) {
+        changes.add(new Change(type, id));
+        refresh.request();
+    }
+    
+    /**
+     * Фоновое применение накопившихся изменений: полное перестроение, если оно запрошено,
+     * иначе перечитка измененных названий и одна сборка дерева.
+     * Вес сохраняется до следующего полного перестроения.
+     */
+    private synchronized void applyPending() {
+        List<Change> pending = new ArrayList<>(changes);
+        changes.removeAll(pending);
+        try {
+            if (reloadRequested.getAndSet(false)) {
+                rebuild();
+                return;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            Map<Change, Optional<String>> texts = ReadYourWrites.callPinned(true, () -> {
+                Map<Change, Optional<String>> loaded = new HashMap<>();
+                for (Change change : pending) {
+                    loaded.put(change, loadText(change));
+                }
+                return loaded;
+            });
+            texts.forEach((change, text) -> {
+                String key = key(change.type(), change.id());
+                if (text.isPresent()) {
+                    SuggestionTrie.Entry previous = entries.get(key);
+                    put(entries, change.type(), change.id(), text.get(), previous != null ? previous.weight() : 0L);
+                } else {
+                    entries.remove(key);
+                }
+            });
+            trie = SuggestionTrie.build(entries.values(), topK);
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обновить подсказки после изменения: {}", e.getMessage());
+        }
+    }
+    
+    private Optional<String> loadText(Change change) {
+        return switch (change.type()) {
+            case MOVIE -> movieRepository.findSummaryById(change.id()).map(MovieSummary::name);
+            case GENRE -> genreRepository.findById(change.id()).map(Genre::getName);
+            case STUDIO -> studioRepository.findById(change.id())
+                .filter(Studio::isActive)
+                .map(Studio::getCompanyName);
+        };
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        refresh.shutdown();
+    }
+    
+    private static void put(Map<String, SuggestionTrie.Entry> target, Suggestion.Type type, Long id,
+                            String text, long weight) {
+        target.put(key(type, id), new SuggestionTrie.Entry(new Suggestion(type, id, text), weight));
+    }
+    
+    private static String key(Suggestion.Type type, Long id) {
+        return type.name() + ":" + id;
+    }
+    
+    private static Map<Long, Long> toCounts(List<Object[]> rows) {
+        Map<Long, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            counts.put((Long) row[0], (Long) row[1]);
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,210 @@
+package com.cinemastore.service;
+
+import com.cinemastore.dto.Suggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Неизменяемое сжатое префиксное дерево (radix trie) подсказок.
+ * Каждая запись индексируется с начала каждого слова ("кариб" находит "Пираты Карибского моря");
+ * в каждом узле заранее сохранены лучшие по весу записи поддерева, поэтому запрос -
+ * спуск по префиксу без обхода поддерева и без сортировки.
+ */
+final class SuggestionTrie {
+    
+    static final SuggestionTrie EMPTY = build(List.of(), 1);
+    
+    /**
+     * Запись с весом популярности
+     */
+    record Entry(Suggestion suggestion, long weight) {}
+    
+    private static final Comparator<Entry> BY_WEIGHT = Comparator.comparingLong(Entry::weight).reversed()
+        .thenComparing(entry -> entry.suggestion().text(), String.CASE_INSENSITIVE_ORDER);
+    
+    private final Node root;
+    private final int size;
+    
+    private SuggestionTrie(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Нормализация ключа: нижний регистр, ё -> е, пробелы и знаки препинания схлопываются
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+        boolean space = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = Character.toLowerCase(text.charAt(i));
+            if (c == 'ё') {
+                c = 'е';
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (space && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                normalized.append(c);
+                space = false;
+            } else {
+                space = true;
+            }
+        }
+        return normalized.toString();
+    }
+    
+    /**
+     * Лучшие записи для префикса (не более topK, заданного при построении)
+     */
+    List<Suggestion> lookup(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        int offset = 0;
+        while (offset < key.length()) {
+            Node child = node.child(key.charAt(offset));
+            if (child == null) {
+                return List.of();
+            }
+            int matched = child.match(key, offset);
+            if (offset + matched == key.length()) {
+                node = child;
+                break;
+            }
+            if (matched < child.label.length) {
+                return List.of();
+            }
+            offset += matched;
+            node = child;
+        }
+        int count = Math.min(limit, node.top.length);
+        List<Suggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(node.top[i].suggestion());
+        }
+        return result;
+    }
+    
+    static SuggestionTrie build(Iterable<Entry> entries, int topK) {
+        MutableNode root = new MutableNode();
+        int size = 0;
+        for (Entry entry : entries) {
+            String key = normalize(entry.suggestion().text());
+            if (key.isEmpty()) {
+                continue;
+            }
+            size++;
+            for (int start = 0; start < key.length(); start = key.indexOf(' ', start) + 1) {
+                root.insert(key, start, entry);
+                if (key.indexOf(' ', start) < 0) {
+                    break;
+                }
+            }
+        }
+        return new SuggestionTrie(root.compress(new char[0], topK, false), size);
+    }
+    
+    /**
+     * Узел при построении: по символу на ребро
+     */
+    private static final class MutableNode {
+        
+        private final TreeMap<Character, MutableNode> children = new TreeMap<>();
+        private final List<Entry> terminal = new ArrayList<>(1);
+        
+        void insert(String key, int from, Entry entry) {
+            MutableNode node = this;
+            for (int i = from; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new MutableNode());
+            }
+            node.terminal.add(entry);
+        }
+        
+        // Цепочки узлов с одним потомком без записей склеиваются в одно ребро
+        Node compress(char[] label, int topK, boolean mergeChain) {
+            MutableNode node = this;
+            StringBuilder path = new StringBuilder().append(label);
+            while (mergeChain && node.terminal.isEmpty() && node.children.size() == 1) {
+                Map.Entry<Character, MutableNode> only = node.children.firstEntry();
+                path.append(only.getKey().charValue());
+                node = only.getValue();
+            }
+            Node[] compressed = new Node[node.children.size()];
+            int i = 0;
+            for (Map.Entry<Character, MutableNode> child : node.children.entrySet()) {
+                compressed[i++] = child.getValue().compress(new char[] {child.getKey()}, topK, true);
+            }
+            return new Node(path.toString().toCharArray(), compressed, top(node.terminal, compressed, topK));
+        }
+        
+        private static Entry[] top(List<Entry> terminal, Node[] children, int topK) {
+            Set<Entry> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Entry> candidates = new ArrayList<>(terminal);
+            for (Node child : children) {
+                candidates.addAll(Arrays.asList(child.top));
+            }
+            candidates.sort(BY_WEIGHT);
+            List<Entry> best = new ArrayList<>(topK);
+            for (Entry candidate : candidates) {
+                if (best.size() == topK) {
+                    break;
+                }
+                if (seen.add(candidate)) {
+                    best.add(candidate);
+                }
+            }
+            return best.toArray(new Entry[0]);
+        }
+    }
+    
+    /**
+     * Узел сжатого дерева: метка ребра, потомки по первому символу, лучшие записи поддерева
+     */
+    private static final class Node {
+        
+        private final char[] label;
+        private final char[] firstChars;
+        private final Node[] children;
+        private final Entry[] top;
+        
+        Node(char[] label, Node[] children, Entry[] top) {
+            this.label = label;
+            this.children = children;
+            this.top = top;
+            this.firstChars = new char[children.length];
+            for (int i = 0; i < children.length; i++) {
+                firstChars[i] = children[i].label[0];
+            }
+        }
+        
+        Node child(char c) {
+            int index = Arrays.binarySearch(firstChars, c);
+            return index >= 0 ? children[index] : null;
+        }
+        
+        // Сколько символов метки совпало с ключом начиная с offset
+        int match(String key, int offset) {
+            int matched = 0;
+            while (matched < label.length && offset + matched < key.length()
+                   && label[matched] == key.charAt(offset + matched)) {
+                matched++;
+            }
+            return matched;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.cinemastore.service;
+
+import com.cinemastore.entity.TicketStatus;
+import com.cinemastore.repository.TicketArchiveRepository;
+import com.cinemastore.repository.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Архивация билетов: завершенные билеты сеансов старше N месяцев переносятся
+ * из горячей таблицы tickets в tickets_archive короткими транзакциями по пачкам.
+ * Списки, поиск, карточка билета и статистика читают обе таблицы через TicketRecord,
+ * поэтому перенос не меняет того, что видят зрители и отчеты.
+ */
+@Service
+public class TicketArchiveService {
+    
+    private static final Logger log = LoggerFactory.getLogger(TicketArchiveService.class);
+    
+    private static final List<TicketStatus> ARCHIVABLE_STATUSES =
+        Arrays.stream(TicketStatus.values()).filter(TicketStatus::isArchivable).toList();
+    
+    private final TicketRepository ticketRepository;
+    private final TicketArchiveRepository ticketArchiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int retentionMonths;
+    private final int batchSize;
+    
+    @Autowired
+    public TicketArchiveService(TicketRepository ticketRepository,
+                                TicketArchiveRepository ticketArchiveRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.tickets.archive.enabled:true}") boolean enabled,
+                                @Value("${app.tickets.archive.retention-months:6}") int retentionMonths,
+                                @Value("${app.tickets.archive.batch-size:500}") int batchSize) {
+        this.ticketRepository = ticketRepository;
+        this.ticketArchiveRepository = ticketArchiveRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retentionMonths = retentionMonths;
+        this.batchSize = batchSize;
+    }
+    
+    /**
+     * Плановая архивация (по умолчанию ночью)
+     */
+    @Scheduled(cron = "${app.tickets.archive.cron:0 30 3 * * *}")
+    public void archiveScheduled() {
+        if (enabled) {
+            archiveOlderThan(LocalDateTime.now().minusMonths(retentionMonths));
+        }
+    }
+    
+    /**
+     * Перенос в архив завершенных билетов с сеансом раньше указанной даты
+     *
+     * @return количество перенесенных билетов
+     */
+    public int archiveOlderThan(LocalDateTime cutoff) {
+        int total = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            total += moved;
+        } while (moved == batchSize);
+        
+        if (total > 0) {
+            log.info("В архив перенесено билетов: {} (сеансы до {})", total, cutoff);
+        }
+        return total;
+    }
+    
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> ids = ticketRepository.findArchivableIds(cutoff, ARCHIVABLE_STATUSES, Limit.of(batchSize));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        ticketArchiveRepository.copyFromTickets(ids, LocalDateTime.now());
+        return ticketRepository.deleteAllByIdIn(ids);
+    }
+}
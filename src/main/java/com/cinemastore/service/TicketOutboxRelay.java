@@ -0,0 +1,92 @@
+package com.cinemastore.service;
+
+import com.cinemastore.entity.TicketOutboxEvent;
+import com.cinemastore.event.TicketLifecycleEvent;
+import com.cinemastore.repository.TicketOutboxRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ретранслятор outbox: пачками публикует события по билетам слушателям внутри приложения
+ * (@EventListener на TicketLifecycleEvent) и помечает их опубликованными в той же транзакции.
+ * Доставка "хотя бы один раз": если слушатель упал, пачка откатывается и уйдет повторно.
+ */
+@Service
+public class TicketOutboxRelay {
+    
+    private static final Logger log = LoggerFactory.getLogger(TicketOutboxRelay.class);
+    
+    private final TicketOutboxRepository outboxRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int retentionDays;
+    
+    @Autowired
+    public TicketOutboxRelay(TicketOutboxRepository outboxRepository,
+                             ApplicationEventPublisher eventPublisher,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.outbox.batch-size:200}") int batchSize,
+                             @Value("${app.outbox.retention-days:7}") int retentionDays) {
+        this.outboxRepository = outboxRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retentionDays = retentionDays;
+    }
+    
+    /**
+     * Публикация накопившихся событий пачками до опустошения очереди
+     */
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void relay() {
+        int published;
+        do {
+            try {
+                published = transactionTemplate.execute(status -> relayBatch());
+            } catch (RuntimeException e) {
+                log.error("Ошибка публикации событий outbox, пачка будет повторена", e);
+                return;
+            }
+        } while (published == batchSize);
+    }
+    
+    private int relayBatch() {
+        List<TicketOutboxEvent> batch = outboxRepository.findUnpublished(Limit.of(batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (TicketOutboxEvent outbox : batch) {
+            eventPublisher.publishEvent(TicketLifecycleEvent.from(outbox));
+            ids.add(outbox.getId());
+        }
+        outboxRepository.markPublished(ids, LocalDateTime.now());
+        return batch.size();
+    }
+    
+    /**
+     * Удаление опубликованных событий старше срока хранения
+     */
+    @Scheduled(cron = "${app.outbox.cleanup-cron:0 15 4 * * *}")
+    public void cleanup() {
+        Integer deleted = transactionTemplate.execute(status ->
+            outboxRepository.deletePublishedBefore(LocalDateTime.now().minusDays(retentionDays)));
+        if (deleted != null && deleted > 0) {
+            log.info("Удалено опубликованных событий outbox: {}", deleted);
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package com.cinemastore.service;
 
+import com.cinemastore.dto.KeysetPage;
+import com.cinemastore.dto.TicketSummary;
 import com.cinemastore.entity.*;
 import com.cinemastore.repository.MovieRepository;
+import com.cinemastore.repository.TicketOutboxRepository;
 import com.cinemastore.repository.TicketRepository;
+import com.cinemastore.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Сервис для работы с билетами
@@ -25,28 +39,139 @@ public class TicketService {
     
     private final TicketRepository ticketRepository;
     private final MovieRepository movieRepository;
+    private final TicketOutboxRepository outboxRepository;
+    private final UserRepository userRepository;
+    private final PricingEngine pricingEngine;
+    private final ReadYourWrites readYourWrites;
+    private final JdbcTemplate jdbcTemplate;
+    private final int statusUpdateAttempts;
+    private final long statusUpdateBackoffMs;
+    private final int maxGroupSize;
+    private final int maxSearchCustomers;
     
     @Autowired
     public TicketService(TicketRepository ticketRepository, 
-                        MovieRepository movieRepository) {
+                        MovieRepository movieRepository,
+                        TicketOutboxRepository outboxRepository,
+                        UserRepository userRepository,
+                        PricingEngine pricingEngine,
+                        ReadYourWrites readYourWrites,
+                        JdbcTemplate jdbcTemplate,
+                        @Value("${app.tickets.status-update-attempts:3}") int statusUpdateAttempts,
+                        @Value("${app.tickets.status-update-backoff-ms:10}") long statusUpdateBackoffMs,
+                        @Value("${app.tickets.max-group-size:50}") int maxGroupSize,
+                        @Value("${app.search.max-customer-matches:500}") int maxSearchCustomers) {
         this.ticketRepository = ticketRepository;
         this.movieRepository = movieRepository;
+        this.outboxRepository = outboxRepository;
+        this.userRepository = userRepository;
+        this.pricingEngine = pricingEngine;
+        this.readYourWrites = readYourWrites;
+        this.jdbcTemplate = jdbcTemplate;
+        this.statusUpdateAttempts = statusUpdateAttempts;
+        this.statusUpdateBackoffMs = statusUpdateBackoffMs;
+        this.maxGroupSize = maxGroupSize;
+        this.maxSearchCustomers = maxSearchCustomers;
     }
     
     /**
-     * Создание нового билета
+     * Создание нового билета (цена рассчитывается правилами ценообразования)
      */
-    public Ticket createTicket(User customer, Movie movie, LocalDateTime showtime, String seat) {
+    public Ticket createTicket(User customer, Movie movie, LocalDateTime showtime, String seat, String promoCode) {
         if (!movie.isAvailable()) {
             throw new RuntimeException("Фильм недоступен для продажи");
         }
         
+        if (seat != null && !seat.isBlank()) {
+            seat = seat.trim().toUpperCase();
+            lockMovie(movie.getId());
+            checkSeatsFree(movie.getId(), showtime, List.of(seat));
+        }
+        
         Ticket ticket = new Ticket(customer, movie, showtime);
         ticket.setSeat(seat);
-        ticket.setPrice(movie.getPrice());
+        ticket.setPrice(pricingEngine.quote(movie.getPrice(), movie.getId(), showtime, seat, promoCode));
         ticket.setStatus(TicketStatus.RESERVED);
         
-        return ticketRepository.save(ticket);
+        // Покупатель сразу открывает билет - читаем его с основной БД, а не с реплики
+        readYourWrites.markWrite();
+        Ticket saved = ticketRepository.save(ticket);
+        appendEvent(TicketEventType.CREATED, saved, null);
+        return saved;
+    }
+    
+    /**
+     * Групповое бронирование: N мест на один сеанс атомарно.
+     * Места проверяются и занимаются под блокировкой фильма (все или ничего),
+     * цена рассчитывается для каждого места (категория ряда), билеты вставляются одним пакетом JDBC.
+     *
+     * @return номера созданных билетов в порядке мест
+     */
+    public List<String> createGroupBooking(User customer, Long movieId, LocalDateTime showtime, List<String> seats,
+                                           String promoCode) {
+        Set<String> uniqueSeats = new LinkedHashSet<>();
+        for (String seat : seats) {
+            if (seat != null && !seat.isBlank()) {
+                uniqueSeats.add(seat.trim().toUpperCase());
+            }
+        }
+        if (uniqueSeats.isEmpty()) {
+            throw new RuntimeException("Не указаны места для бронирования");
+        }
+        if (uniqueSeats.size() > maxGroupSize) {
+            throw new RuntimeException("Слишком много мест в одном бронировании (максимум " + maxGroupSize + ")");
+        }
+        
+        Movie movie = lockMovie(movieId);
+        if (!movie.isAvailable()) {
+            throw new RuntimeException("Фильм недоступен для продажи");
+        }
+        checkSeatsFree(movieId, showtime, uniqueSeats);
+        
+        String prefix = Ticket.newTicketNumberPrefix() + "-";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp showtimeTs = Timestamp.valueOf(showtime);
+        List<String> ticketNumbers = new ArrayList<>(uniqueSeats.size());
+        List<Object[]> rows = new ArrayList<>(uniqueSeats.size());
+        int index = 1;
+        for (String seat : uniqueSeats) {
+            String ticketNumber = prefix + index++;
+            ticketNumbers.add(ticketNumber);
+            rows.add(new Object[] {ticketNumber, customer.getId(), movieId, showtimeTs, seat,
+                                   TicketStatus.RESERVED.name(),
+                                   pricingEngine.quote(movie.getPrice(), movieId, showtime, seat, promoCode),
+                                   now, now});
+        }
+        
+        // Пакетная вставка в той же транзакции (JdbcTemplate использует соединение JPA-транзакции)
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO tickets (ticket_number, customer_id, movie_id, showtime, seat, status, price, " +
+            "created_at, updated_at, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)",
+            rows);
+        outboxRepository.appendForTickets(ticketNumbers, TicketEventType.CREATED, LocalDateTime.now());
+        
+        readYourWrites.markWrite();
+        return ticketNumbers;
+    }
+    
+    /**
+     * Запись события в outbox в текущей транзакции: событие видно ретранслятору
+     * только вместе с изменением билета
+     */
+    private void appendEvent(TicketEventType type, Ticket ticket, TicketStatus previousStatus) {
+        outboxRepository.save(new TicketOutboxEvent(type, ticket, previousStatus));
+    }
+    
+    private Movie lockMovie(Long movieId) {
+        return movieRepository.findByIdForUpdate(movieId)
+            .orElseThrow(() -> new RuntimeException("Фильм не найден"));
+    }
+    
+    private void checkSeatsFree(Long movieId, LocalDateTime showtime, Collection<String> seats) {
+        List<String> taken = ticketRepository.findTakenSeats(movieId, showtime, seats);
+        if (!taken.isEmpty()) {
+            throw new RuntimeException("Места уже заняты: " + String.join(", ", taken));
+        }
     }
     
     /**
@@ -57,6 +182,14 @@ public class TicketService {
         return ticketRepository.findById(id);
     }
     
+    /**
+     * Билет для просмотра: из горячей таблицы или из архива
+     */
+    @Transactional(readOnly = true)
+    public Optional<TicketRecord> findRecordById(Long id) {
+        return ticketRepository.findRecordById(id);
+    }
+    
     /**
      * Получение билета по номеру
      */
@@ -74,56 +207,135 @@ public class TicketService {
     }
     
     /**
-     * Получение билетов с пагинацией
+     * Получение билетов с пагинацией (проекции для списка)
      */
-    @Transactional(readOnly = true)
-    public Page<Ticket> findAll(Pageable pageable) {
-        return ticketRepository.findAll(pageable);
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.TICKET_SEARCH)
+    public Page<TicketSummary> findAll(Pageable pageable) {
+        return ticketRepository.findSummaries(pageable);
     }
     
     /**
      * Получение билетов клиента
      */
-    @Transactional(readOnly = true)
-    public Page<Ticket> findByCustomer(User customer, Pageable pageable) {
-        return ticketRepository.findByCustomer(customer, pageable);
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.TICKET_SEARCH)
+    public Page<TicketSummary> findByCustomer(User customer, Pageable pageable) {
+        return ticketRepository.findSummariesByCustomerId(customer.getId(), pageable);
     }
     
     /**
-     * Получение билетов по статусу
+     * Получение билетов по статусу: незавершенные статусы читаются только из горячей таблицы
      */
-    @Transactional(readOnly = true)
-    public Page<Ticket> findByStatus(TicketStatus status, Pageable pageable) {
-        return ticketRepository.findByStatus(status, pageable);
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.TICKET_SEARCH)
+    public Page<TicketSummary> findByStatus(TicketStatus status, Pageable pageable) {
+        return status.isArchivable()
+            ? ticketRepository.findSummariesByStatus(status, pageable)
+            : ticketRepository.findLiveSummariesByStatus(status, pageable);
     }
     
     /**
      * Поиск билетов
      */
-    @Transactional(readOnly = true)
-    public Page<Ticket> searchTickets(String search, Pageable pageable) {
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.TICKET_SEARCH)
+    public Page<TicketSummary> searchTickets(String search, Pageable pageable) {
         if (search == null || search.trim().isEmpty()) {
-            return ticketRepository.findAll(pageable);
+            return ticketRepository.findSummaries(pageable);
+        }
+        String query = search.trim();
+        // Точный номер билета ищется по уникальному индексу; следующие страницы - обычным поиском
+        if (SearchPatterns.isTicketNumber(query) && !pageable.hasPrevious()) {
+            Optional<TicketSummary> exact = ticketRepository.findSummaryByTicketNumber(query.toUpperCase(Locale.ROOT));
+            if (exact.isPresent()) {
+                return new PageImpl<>(List.of(exact.get()), pageable, 1);
+            }
+        }
+        
+        String pattern = SearchPatterns.contains(query);
+        List<Long> customerIds = userRepository.findIdsByNameLike(pattern, Limit.of(maxSearchCustomers + 1));
+        if (customerIds.isEmpty()) {
+            return ticketRepository.searchByTicketNumber(pattern, pageable);
         }
-        return ticketRepository.searchTickets(search.trim(), pageable);
+        if (customerIds.size() > maxSearchCustomers) {
+            return ticketRepository.searchTicketsBroad(pattern, pageable);
+        }
+        return ticketRepository.searchTickets(pattern, customerIds, pageable);
+    }
+    
+    /**
+     * Проекции билетов с курсорной пагинацией (для REST API)
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<TicketSummary> findSummaries(long afterId, TicketStatus status, int limit) {
+        List<TicketSummary> items = status != null && !status.isArchivable()
+            ? ticketRepository.findLiveSummariesAfter(afterId, status, Limit.of(limit))
+            : ticketRepository.findSummariesAfter(afterId, status, Limit.of(limit));
+        return KeysetPage.of(items, limit, TicketSummary::id);
     }
     
     /**
-     * Изменение статуса билета
+     * Проекции билетов клиента с курсорной пагинацией (для REST API)
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<TicketSummary> findCustomerSummaries(User customer, long afterId, int limit) {
+        List<TicketSummary> items = ticketRepository.findCustomerSummariesAfter(customer.getId(), afterId,
+                                                                                Limit.of(limit));
+        return KeysetPage.of(items, limit, TicketSummary::id);
+    }
+    
+    /**
+     * Проекция билета по ID (для REST API)
+     */
+    @Transactional(readOnly = true)
+    public Optional<TicketSummary> findSummaryById(Long id) {
+        return ticketRepository.findSummaryById(id);
+    }
+    
+    /**
+     * Изменение статуса билета.
+     * Переход применяется условным UPDATE по ожидаемому статусу; если билет успел изменить
+     * другой кассир, статус перечитывается и переход проверяется заново - параллельные
+     * изменения не теряются и не перезаписывают друг друга.
      */
     public Ticket updateStatus(Long ticketId, TicketStatus newStatus, User cashier) {
-        Ticket ticket = ticketRepository.findById(ticketId)
-            .orElseThrow(() -> new RuntimeException("Билет не найден"));
-        
-        validateStatusTransition(ticket.getStatus(), newStatus);
-        
-        ticket.setStatus(newStatus);
-        
-        if (cashier != null && ticket.getCashier() == null) {
-            ticket.setCashier(cashier);
+        for (int attempt = 1; ; attempt++) {
+            TicketStatus current = ticketRepository.findStatusById(ticketId)
+                .orElseThrow(() -> new RuntimeException("Билет не найден"));
+            
+            validateStatusTransition(current, newStatus);
+            
+            LocalDateTime now = LocalDateTime.now();
+            int updated = ticketRepository.compareAndSetStatus(ticketId, current.name(), newStatus.name(),
+                cashier != null ? cashier.getId() : null,
+                newStatus == TicketStatus.USED ? now : null,
+                now);
+            if (updated == 1) {
+                Ticket ticket = ticketRepository.findById(ticketId)
+                    .orElseThrow(() -> new RuntimeException("Билет не найден"));
+                appendEvent(TicketEventType.STATUS_CHANGED, ticket, current);
+                return ticket;
+            }
+            if (attempt >= statusUpdateAttempts) {
+                throw new RuntimeException("Билет одновременно изменен другим пользователем, повторите попытку");
+            }
+            backoff(attempt);
+        }
+    }
+    
+    /**
+     * Пауза перед повтором со случайным разбросом, растущая с номером попытки: повторы
+     * конкурирующих запросов не совпадают по времени. Неудачный UPDATE не изменил строку,
+     * поэтому на время паузы блокировок не удерживается.
+     */
+    private void backoff(int attempt) {
+        long maxDelay = statusUpdateBackoffMs * attempt;
+        if (maxDelay <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(maxDelay / 2, maxDelay + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Изменение статуса билета прервано", e);
         }
-        
-        return ticketRepository.save(ticket);
     }
     
     /**
@@ -155,7 +367,8 @@ public class TicketService {
     }
     
     /**
-     * Обновление места в билете
+     * Обновление места в билете: новое место проверяется и занимается
+     * под блокировкой фильма, как при покупке
      */
     public Ticket updateSeat(Long ticketId, String seat) {
         Ticket ticket = ticketRepository.findById(ticketId)
@@ -165,8 +378,17 @@ public class TicketService {
             throw new RuntimeException("Невозможно изменить место в текущем статусе");
         }
         
-        ticket.setSeat(seat);
-        return ticketRepository.save(ticket);
+        String normalized = seat != null && !seat.isBlank() ? seat.trim().toUpperCase() : null;
+        if (normalized != null && !normalized.equals(ticket.getSeat())) {
+            Long movieId = ticket.getMovie().getId();
+            lockMovie(movieId);
+            checkSeatsFree(movieId, ticket.getShowtime(), List.of(normalized));
+        }
+        
+        ticket.setSeat(normalized);
+        Ticket saved = ticketRepository.save(ticket);
+        appendEvent(TicketEventType.SEAT_CHANGED, saved, null);
+        return saved;
     }
     
     /**
@@ -191,22 +413,38 @@ public class TicketService {
             throw new RuntimeException("Невозможно удалить билет в текущем статусе");
         }
         
+        appendEvent(TicketEventType.DELETED, ticket, null);
         ticketRepository.deleteById(id);
     }
     
     /**
-     * Получение последних билетов
+     * Получение последних билетов. В архив попадают билеты сеансов, прошедших месяцы назад,
+     * поэтому последние билеты почти всегда находятся в горячей таблице; архив читается,
+     * только если в ней их меньше, чем нужно.
+     */
+    @Transactional(readOnly = true)
+    public List<TicketSummary> findRecentTickets(int limit) {
+        List<TicketSummary> live = ticketRepository.findRecentLiveSummaries(Limit.of(limit));
+        return live.size() < limit ? ticketRepository.findRecentSummaries(Limit.of(limit)) : live;
+    }
+    
+    /**
+     * Последние билеты клиента (архив - только если в горячей таблице их меньше, чем нужно)
      */
     @Transactional(readOnly = true)
-    public List<Ticket> findRecentTickets(int limit) {
-        return ticketRepository.findRecentTickets(PageRequest.of(0, limit));
+    public List<TicketSummary> findRecentTickets(User customer, int limit) {
+        List<TicketSummary> live = ticketRepository.findRecentLiveSummariesByCustomerId(customer.getId(),
+                                                                                        Limit.of(limit));
+        return live.size() < limit
+            ? ticketRepository.findRecentSummariesByCustomerId(customer.getId(), Limit.of(limit))
+            : live;
     }
     
     /**
      * Получение билетов требующих обработки
      */
     @Transactional(readOnly = true)
-    public List<Ticket> findTicketsRequiringProcessing() {
+    public List<TicketSummary> findTicketsRequiringProcessing() {
         return ticketRepository.findTicketsRequiringProcessing();
     }
     
@@ -219,7 +457,7 @@ public class TicketService {
     }
     
     /**
-     * Расчет выручки за период
+     * Расчет выручки за период (включая архивные билеты)
      */
     @Transactional(readOnly = true)
     public BigDecimal calculateRevenue(LocalDateTime startDate, LocalDateTime endDate) {
@@ -228,19 +466,21 @@ public class TicketService {
     }
     
     /**
-     * Получение количества билетов по статусу
+     * Получение количества билетов по статусу (незавершенные - только по горячей таблице)
      */
     @Transactional(readOnly = true)
     public long countByStatus(TicketStatus status) {
-        return ticketRepository.countByStatus(status);
+        return status.isArchivable()
+            ? ticketRepository.countByStatus(status)
+            : ticketRepository.countLiveByStatus(status);
     }
     
     /**
-     * Получение общего количества билетов
+     * Получение общего количества билетов (включая архивные)
      */
     @Transactional(readOnly = true)
     public long count() {
-        return ticketRepository.count();
+        return ticketRepository.countWithArchive();
     }
 }
 
@@ -1,17 +1,31 @@
 package com.cinemastore.service;
 
+import com.cinemastore.config.CacheConfig;
+import com.cinemastore.dto.UserRow;
+import com.cinemastore.dto.UserStatistics;
 import com.cinemastore.entity.Role;
 import com.cinemastore.entity.User;
+import com.cinemastore.repository.TicketArchiveRepository;
 import com.cinemastore.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Сервис для работы с пользователями
@@ -20,31 +34,64 @@ import java.util.Optional;
 @Transactional
 public class UserService {
     
+    private static final Pattern DUPLICATE_COLUMN = Pattern.compile("(?i)\\((username|email)[\\s)]");
+    
     private final UserRepository userRepository;
+    private final TicketArchiveRepository ticketArchiveRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UsernameBloomFilter usernameFilter;
     
     @Autowired
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, TicketArchiveRepository ticketArchiveRepository,
+                       PasswordEncoder passwordEncoder, UsernameBloomFilter usernameFilter) {
         this.userRepository = userRepository;
+        this.ticketArchiveRepository = ticketArchiveRepository;
         this.passwordEncoder = passwordEncoder;
+        this.usernameFilter = usernameFilter;
     }
     
     /**
-     * Регистрация нового пользователя
+     * Регистрация нового пользователя.
+     * Уникальность гарантируют ограничения БД: выполняется одна попытка вставки, нарушение
+     * ограничения превращается в DuplicateUserException с полем формы. Предварительный запрос
+     * по имени делается, только если фильтр Блума считает имя возможно занятым, - чтобы
+     * не тратить время на хэширование пароля для заведомо занятого имени.
      */
+    @CacheEvict(value = CacheConfig.USER_STATISTICS, allEntries = true)
     public User registerUser(User user) {
-        if (userRepository.existsByUsername(user.getUsername())) {
-            throw new RuntimeException("Пользователь с таким именем уже существует");
-        }
-        if (userRepository.existsByEmail(user.getEmail())) {
-            throw new RuntimeException("Пользователь с таким email уже существует");
+        if (usernameFilter.mightContain(user.getUsername())
+            && userRepository.existsByUsername(user.getUsername())) {
+            throw DuplicateUserException.username();
         }
         
         user.setPassword(passwordEncoder.encode(user.getPassword()));
         if (user.getRole() == null) {
             user.setRole(Role.CUSTOMER);
         }
-        return userRepository.save(user);
+        
+        User saved;
+        try {
+            saved = userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw translateDuplicate(e);
+        }
+        usernameFilter.add(saved.getUsername());
+        return saved;
+    }
+    
+    /**
+     * Определение поля по нарушенному ограничению уникальности
+     * (PostgreSQL: "Key (email)=...", H2: "USERS(EMAIL NULLS FIRST)")
+     */
+    private RuntimeException translateDuplicate(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        Matcher matcher = DUPLICATE_COLUMN.matcher(message != null ? message : "");
+        if (matcher.find()) {
+            return matcher.group(1).equalsIgnoreCase(DuplicateUserException.USERNAME)
+                ? DuplicateUserException.username()
+                : DuplicateUserException.email();
+        }
+        return new RuntimeException("Не удалось сохранить пользователя", e);
     }
     
     /**
@@ -82,9 +129,9 @@ public class UserService {
     /**
      * Получение пользователей с пагинацией
      */
-    @Transactional(readOnly = true)
-    public Page<User> findAll(Pageable pageable) {
-        return userRepository.findAll(pageable);
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.ADMIN_LIST)
+    public Page<UserRow> findAll(Pageable pageable) {
+        return userRepository.findRows(pageable);
     }
     
     /**
@@ -98,20 +145,28 @@ public class UserService {
     /**
      * Получение пользователей по роли с пагинацией
      */
-    @Transactional(readOnly = true)
-    public Page<User> findByRole(Role role, Pageable pageable) {
-        return userRepository.findByRole(role, pageable);
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.ADMIN_LIST)
+    public Page<UserRow> findByRole(Role role, Pageable pageable) {
+        return userRepository.findRowsByRole(role, pageable);
     }
     
     /**
      * Поиск пользователей
      */
-    @Transactional(readOnly = true)
-    public Page<User> searchUsers(String search, Pageable pageable) {
+    @Transactional(readOnly = true, timeoutString = QueryTimeouts.ADMIN_LIST)
+    public Page<UserRow> searchUsers(String search, Pageable pageable) {
         if (search == null || search.trim().isEmpty()) {
-            return userRepository.findAll(pageable);
+            return userRepository.findRows(pageable);
         }
-        return userRepository.searchUsers(search.trim(), pageable);
+        String query = search.trim();
+        // Точный email ищется по уникальному индексу; следующие страницы - обычным поиском
+        if (SearchPatterns.isEmail(query) && !pageable.hasPrevious()) {
+            Optional<UserRow> exact = userRepository.findRowByEmail(query);
+            if (exact.isPresent()) {
+                return new PageImpl<>(List.of(exact.get()), pageable, 1);
+            }
+        }
+        return userRepository.searchUsers(SearchPatterns.contains(query), pageable);
     }
     
     /**
@@ -155,6 +210,7 @@ public class UserService {
     /**
      * Изменение роли пользователя (только для администратора)
      */
+    @CacheEvict(value = CacheConfig.USER_STATISTICS, allEntries = true)
     public User changeRole(Long id, Role newRole) {
         User user = userRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Пользователь не найден"));
@@ -177,10 +233,15 @@ public class UserService {
     /**
      * Удаление пользователя
      */
+    @CacheEvict(value = CacheConfig.USER_STATISTICS, allEntries = true)
     public void deleteUser(Long id) {
         if (!userRepository.existsById(id)) {
             throw new RuntimeException("Пользователь не найден");
         }
+        // У архива нет внешних ключей: ссылки на пользователя проверяются явно
+        if (ticketArchiveRepository.existsByCustomerIdOrCashierId(id, id)) {
+            throw new RuntimeException("Невозможно удалить пользователя: у него есть архивные билеты");
+        }
         userRepository.deleteById(id);
     }
     
@@ -200,6 +261,34 @@ public class UserService {
         return userRepository.existsByEmail(email);
     }
     
+    /**
+     * Статистика пользователей (один групповой запрос, результат кэшируется
+     * до регистрации, смены роли или удаления пользователя; чтение, пересекшееся
+     * с изменением, может закэшировать старое значение до периодического сброса)
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(CacheConfig.USER_STATISTICS)
+    public UserStatistics getStatistics() {
+        Map<Role, Long> byRole = new EnumMap<>(Role.class);
+        long total = 0;
+        for (Object[] row : userRepository.countGroupedByRole()) {
+            long count = ((Number) row[1]).longValue();
+            byRole.put((Role) row[0], count);
+            total += count;
+        }
+        return new UserStatistics(total, byRole);
+    }
+    
+    /**
+     * Периодический сброс статистики: подхватывает изменения с других экземпляров
+     * и устаревшие значения после гонки с очисткой. Транзакция не нужна - очистка сразу.
+     */
+    @Scheduled(fixedRateString = "${app.users.statistics-refresh-ms:300000}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @CacheEvict(value = CacheConfig.USER_STATISTICS, allEntries = true)
+    public void refreshStatistics() {
+    }
+    
     /**
      * Получение количества пользователей по роли
      */
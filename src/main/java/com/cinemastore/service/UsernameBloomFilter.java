@@ -0,0 +1,121 @@
+package com.cinemastore.service;
+
+import com.cinemastore.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Фильтр Блума занятых имен пользователей.
+ * Ответ "точно свободно" позволяет регистрации не делать предварительный запрос к БД;
+ * ответ "возможно занято" (в том числе ложноположительный) означает, что имя нужно
+ * проверить запросом до дорогого хэширования пароля. Удаление пользователей фильтр
+ * не учитывает - это дает только лишние ложноположительные ответы.
+ */
+@Component
+public class UsernameBloomFilter {
+    
+    private static final Logger log = LoggerFactory.getLogger(UsernameBloomFilter.class);
+    
+    private final UserRepository userRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+    // До загрузки фильтра любое имя считается возможно занятым
+    private volatile boolean loaded;
+    
+    @Autowired
+    public UsernameBloomFilter(UserRepository userRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.users.bloom.expected-insertions:100000}") int expectedInsertions,
+                               @Value("${app.users.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.userRepository = userRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        
+        double ln2 = Math.log(2);
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bitCount = (int) Math.max(64, Math.min(Integer.MAX_VALUE - 63, optimalBits));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * ln2));
+        this.bits = new AtomicLongArray((bitCount + 63) / 64);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long count = readOnlyTransaction.execute(status -> {
+            try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+                return usernames.peek(this::add).count();
+            }
+        });
+        loaded = true;
+        log.info("Фильтр имен пользователей загружен: {} имен, {} бит, {} хэш-функций", count, bitCount, hashCount);
+    }
+    
+    /**
+     * Добавление занятого имени
+     */
+    public void add(String username) {
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            setBit(bit);
+        }
+    }
+    
+    /**
+     * false - имя точно свободно; true - возможно занято
+     */
+    public boolean mightContain(String username) {
+        if (!loaded) {
+            return true;
+        }
+        long hash = hash(username);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private void setBit(int bit) {
+        int index = bit >>> 6;
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = bits.get(index);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(index, current, current | mask));
+    }
+    
+    // 64-битный FNV-1a с финальным перемешиванием (две независимые половины для двойного хэширования)
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
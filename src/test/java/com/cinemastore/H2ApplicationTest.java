@@ -0,0 +1,18 @@
+package com.cinemastore;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Контекст приложения на H2 в памяти с начальными данными DataInitializer.
+ * Наследники с одинаковой конфигурацией используют один закэшированный контекст.
+ */
+@SpringBootTest(properties = {
+    "spring.datasource.url=jdbc:h2:mem:app-test;DB_CLOSE_DELAY=-1",
+    "spring.datasource.driverClassName=org.h2.Driver",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.jpa.show-sql=false",
+    "app.catalog.release.enabled=false"
+})
+public abstract class H2ApplicationTest {
+}
@@ -0,0 +1,161 @@
+package com.cinemastore.config;
+
+import com.cinemastore.service.ReadYourWrites;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Маршрутизация чтения на реплики на двух экземплярах PostgreSQL.
+ * Экземпляры независимы (без потоковой репликации): запрос current_database()
+ * показывает, на какую БД ушла транзакция. Без Docker тест пропускается.
+ */
+@SpringBootTest(classes = ReadReplicaRoutingTest.RoutingConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ReadReplicaRoutingTest {
+    
+    private static final String PRIMARY_DB = "primary_db";
+    private static final String REPLICA_DB = "replica_db";
+    
+    @Container
+    static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:16-alpine")
+        .withDatabaseName(PRIMARY_DB);
+    
+    @Container
+    static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16-alpine")
+        .withDatabaseName(REPLICA_DB);
+    
+    @DynamicPropertySource
+    static void dataSources(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PRIMARY::getJdbcUrl);
+        registry.add("spring.datasource.username", PRIMARY::getUsername);
+        registry.add("spring.datasource.password", PRIMARY::getPassword);
+        registry.add("app.datasource.replicas", REPLICA::getJdbcUrl);
+        registry.add("spring.datasource.hikari.connection-timeout", () -> "2000");
+    }
+    
+    /**
+     * Только источники данных, транзакции и чтение собственных записей - без JPA и планировщика
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class,
+                              JdbcTemplateAutoConfiguration.class, TransactionAutoConfiguration.class})
+    @Import({ReplicaDataSourceConfig.class, ReadYourWrites.class, ReadYourWritesFilter.class})
+    static class RoutingConfig {
+    }
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private ReplicaDataSourceConfig replicaConfig;
+    
+    @Autowired
+    private ReadYourWrites readYourWrites;
+    
+    @Autowired
+    private ReadYourWritesFilter readYourWritesFilter;
+    
+    @BeforeEach
+    void checkReplicas() {
+        replicaConfig.monitorReplicas();
+    }
+    
+    @Test
+    @Order(1)
+    void readOnlyTransactionGoesToReplica() {
+        assertEquals(REPLICA_DB, currentDatabase(true));
+    }
+    
+    @Test
+    @Order(2)
+    void readWriteTransactionGoesToPrimary() {
+        assertEquals(PRIMARY_DB, currentDatabase(false));
+    }
+    
+    @Test
+    @Order(3)
+    void writeOutsideRequestDoesNotPinThread() {
+        readYourWrites.markWrite();
+        
+        assertFalse(ReadYourWrites.isPinnedToPrimary());
+        assertEquals(REPLICA_DB, currentDatabase(true));
+    }
+    
+    @Test
+    @Order(4)
+    void writeInsideRequestPinsRestOfRequestAndSession() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        List<String> seen = new ArrayList<>();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            readYourWritesFilter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+                seen.add(currentDatabase(true));
+                readYourWrites.markWrite();
+                seen.add(currentDatabase(true));
+            });
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+        assertEquals(List.of(REPLICA_DB, PRIMARY_DB), seen);
+        // Признак снят вместе с окончанием запроса
+        assertFalse(ReadYourWrites.isPinnedToPrimary());
+        assertEquals(REPLICA_DB, currentDatabase(true));
+        
+        // Следующий запрос той же сессии в пределах окна читает с основной БД
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setSession(request.getSession());
+        List<String> nextSeen = new ArrayList<>();
+        readYourWritesFilter.doFilter(next, new MockHttpServletResponse(),
+            (req, res) -> nextSeen.add(currentDatabase(true)));
+        assertEquals(List.of(PRIMARY_DB), nextSeen);
+    }
+    
+    @Test
+    @Order(5)
+    void unavailableReplicaFallsBackToPrimary() {
+        REPLICA.stop();
+        replicaConfig.monitorReplicas();
+        
+        assertEquals(PRIMARY_DB, currentDatabase(true));
+    }
+    
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT current_database()", String.class));
+    }
+}
@@ -0,0 +1,127 @@
+package com.cinemastore.security;
+
+import com.cinemastore.security.RateLimiter.Decision;
+import com.cinemastore.security.RateLimiter.Endpoint;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Ограничение частоты GCRA: всплеск, раздельные ключи IP и пользователя,
+ * отсутствие списаний при отказе и при параллельной очистке корзин.
+ * Лимиты - единицы в минуту, поэтому за время теста корзины не пополняются.
+ */
+class RateLimiterTest {
+    
+    private static final int BURST = 3;
+    
+    private final RateLimiter limiter = limiter(BURST);
+    
+    @Test
+    void burstIsAllowedThenRejected() {
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(Decision.ALLOWED, limiter.check(Endpoint.LOGIN, "10.0.0.1", "alice"));
+        }
+        assertEquals(Decision.RATE_IP, limiter.check(Endpoint.LOGIN, "10.0.0.1", "alice"));
+        assertEquals(Decision.RATE_USER, limiter.check(Endpoint.LOGIN, "10.0.0.2", "alice"));
+        assertEquals(Decision.ALLOWED, limiter.check(Endpoint.LOGIN, "10.0.0.2", "bob"));
+    }
+    
+    @Test
+    void ipLimitAppliesAcrossUsers() {
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(Decision.ALLOWED, limiter.check(Endpoint.LOGIN, "10.0.0.1", "user" + i));
+        }
+        assertEquals(Decision.RATE_IP, limiter.check(Endpoint.LOGIN, "10.0.0.1", "other"));
+        assertEquals(Decision.ALLOWED, limiter.check(Endpoint.LOGIN, "10.0.0.2", "other"));
+    }
+    
+    @Test
+    void userRejectionDoesNotSpendIpBudget() {
+        // alice исчерпывает свой лимит с другого адреса
+        for (int i = 0; i < BURST; i++) {
+            limiter.check(Endpoint.TICKETS, "10.0.0.2", "alice");
+        }
+        // ...и продолжает из-за NAT, где работают и другие пользователи
+        for (int i = 0; i < 20; i++) {
+            assertEquals(Decision.RATE_USER, limiter.check(Endpoint.TICKETS, "10.0.0.1", "alice"));
+        }
+        
+        for (int i = 0; i < BURST; i++) {
+            assertEquals(Decision.ALLOWED, limiter.check(Endpoint.TICKETS, "10.0.0.1", "user" + i));
+        }
+    }
+    
+    @Test
+    void endpointsHaveSeparateBuckets() {
+        for (int i = 0; i < BURST; i++) {
+            limiter.check(Endpoint.LOGIN, "10.0.0.1", "alice");
+        }
+        assertEquals(Decision.ALLOWED, limiter.check(Endpoint.TICKETS, "10.0.0.1", "alice"));
+    }
+    
+    @Test
+    void evictionKeepsBusyBuckets() {
+        for (int i = 0; i < BURST; i++) {
+            limiter.check(Endpoint.LOGIN, "10.0.0.1", "alice");
+        }
+        limiter.evictIdleBuckets();
+        
+        assertEquals(Decision.RATE_IP, limiter.check(Endpoint.LOGIN, "10.0.0.1", "alice"));
+        assertEquals(Decision.RATE_USER, limiter.check(Endpoint.LOGIN, "10.0.0.2", "alice"));
+    }
+    
+    @Test
+    void parallelRequestsNeverExceedBurstWhileBucketsAreEvicted() throws Exception {
+        int burst = 50;
+        RateLimiter shared = limiter(burst);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger allowed = new AtomicInteger();
+        try {
+            executor.submit(() -> {
+                while (running.get()) {
+                    shared.evictIdleBuckets();
+                }
+            });
+            List<Future<?>> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < burst; i++) {
+                        if (shared.check(Endpoint.TICKETS, "10.0.0.1", "alice") == Decision.ALLOWED) {
+                            allowed.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> worker : workers) {
+                worker.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+        assertEquals(burst, allowed.get());
+    }
+    
+    private static RateLimiter limiter(int burst) {
+        // Один запрос в минуту на ключ: допускается только всплеск
+        return new RateLimiter(new SimpleMeterRegistry(), true,
+                               1, 1, burst,
+                               1, 1, burst,
+                               1, 1, burst,
+                               4, 8, 100);
+    }
+}
@@ -0,0 +1,107 @@
+package com.cinemastore.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Токен допуска очереди: подпись, владелец и срок проверяются без состояния,
+ * любой измененный или просроченный токен отклоняется.
+ */
+class WaitingRoomTest {
+    
+    private static final String SECRET = "test-secret-0123456789abcdef";
+    
+    @Test
+    void issuedTokenIsValidForItsOwnerOnly() {
+        WaitingRoom room = room(15, SECRET);
+        String token = room.issueToken("alice");
+        
+        assertTrue(room.isValidToken(token, "alice"));
+        assertFalse(room.isValidToken(token, "bob"));
+        assertFalse(room.isValidToken(token, null));
+    }
+    
+    @Test
+    void sharedSecretTokenIsValidOnAnotherInstance() {
+        String token = room(15, SECRET).issueToken("alice");
+        
+        assertTrue(room(15, SECRET).isValidToken(token, "alice"));
+        assertFalse(room(15, "another-secret").isValidToken(token, "alice"));
+        assertFalse(room(15, "").isValidToken(token, "alice"));
+    }
+    
+    @Test
+    void expiredTokenIsRejected() {
+        WaitingRoom room = room(0, SECRET);
+        
+        assertFalse(room.isValidToken(room.issueToken("alice"), "alice"));
+    }
+    
+    @Test
+    void tamperedPayloadIsRejected() {
+        WaitingRoom room = room(15, SECRET);
+        String token = room.issueToken("alice");
+        String signature = token.substring(token.indexOf('.') + 1);
+        
+        String otherOwner = encode("bob:" + Long.MAX_VALUE) + "." + signature;
+        String longerTtl = encode("alice:" + Long.MAX_VALUE) + "." + signature;
+        
+        assertFalse(room.isValidToken(otherOwner, "bob"));
+        assertFalse(room.isValidToken(longerTtl, "alice"));
+    }
+    
+    @Test
+    void tamperedSignatureIsRejected() {
+        WaitingRoom room = room(15, SECRET);
+        String token = room.issueToken("alice");
+        int dot = token.indexOf('.');
+        char first = token.charAt(dot + 1);
+        
+        String flipped = token.substring(0, dot + 1) + (first == 'A' ? 'B' : 'A') + token.substring(dot + 2);
+        String unsigned = token.substring(0, dot + 1);
+        
+        assertFalse(room.isValidToken(flipped, "alice"));
+        assertFalse(room.isValidToken(unsigned, "alice"));
+    }
+    
+    @Test
+    void malformedTokensAreRejected() {
+        WaitingRoom room = room(15, SECRET);
+        
+        assertFalse(room.isValidToken(null, "alice"));
+        assertFalse(room.isValidToken("", "alice"));
+        assertFalse(room.isValidToken("no-dot", "alice"));
+        assertFalse(room.isValidToken(".signature", "alice"));
+        assertFalse(room.isValidToken("not base64!.also not", "alice"));
+    }
+    
+    @Test
+    void admissionBoundaryAdvancesByRate() {
+        WaitingRoom room = new WaitingRoom(true, 2, 15, SECRET);
+        long first = room.join();
+        room.join();
+        long third = room.join();
+        
+        assertEquals(3, room.waitingCount());
+        room.admit();
+        assertEquals(0, room.position(first));
+        assertEquals(1, room.position(third));
+        room.admit();
+        room.admit();
+        // Граница не уходит дальше последнего выданного номера
+        assertEquals(0, room.waitingCount());
+        assertEquals(1, room.position(room.join()));
+    }
+    
+    private static WaitingRoom room(long ttlMinutes, String secret) {
+        return new WaitingRoom(true, 5, ttlMinutes, secret);
+    }
+    
+    private static String encode(String payload) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
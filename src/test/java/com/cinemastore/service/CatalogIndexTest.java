@@ -0,0 +1,132 @@
+package com.cinemastore.service;
+
+import com.cinemastore.H2ApplicationTest;
+import com.cinemastore.dto.MovieSummary;
+import com.cinemastore.entity.Genre;
+import com.cinemastore.entity.Movie;
+import com.cinemastore.repository.GenreRepository;
+import com.cinemastore.repository.MovieRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Индекс каталога в памяти возвращает те же строки и в том же порядке, что и запрос в БД:
+ * подстановочные символы в поиске ищутся буквально, регистр сворачивается одинаково,
+ * а точечная правка снимка дает тот же результат, что и полное перестроение.
+ */
+class CatalogIndexTest extends H2ApplicationTest {
+    
+    private static final long[] PRICE_BUCKETS = {30000, 35000, 40000};
+    private static final List<String> SEARCHES = List.of(
+        "индекс", "100%", "%", "_", "кс_а", "ИНДЕКС", "матрица", "а", "нет такого");
+    private static final List<Sort> SORTS = List.of(
+        Sort.by("id"), Sort.by(Sort.Direction.DESC, "price"), Sort.by("duration"),
+        Sort.by(Sort.Direction.DESC, "releaseDate"), Sort.by("rating"));
+    
+    @Autowired
+    private CatalogIndex catalogIndex;
+    
+    @Autowired
+    private MovieService movieService;
+    
+    @Autowired
+    private MovieRepository movieRepository;
+    
+    @Autowired
+    private GenreRepository genreRepository;
+    
+    private Genre genre;
+    
+    @BeforeEach
+    void loadGenre() {
+        genre = genreRepository.findAll().get(0);
+        catalogIndex.rebuild();
+    }
+    
+    @Test
+    void indexMatchesDatabaseForSearchAndSort() {
+        createMovie("Индекс 100% правды", "311.00", 91, 1);
+        createMovie("Индекс 100 правды", "312.00", 92, 2);
+        createMovie("Индекс_а", "313.00", 93, 3);
+        createMovie("ИндексБа", "314.00", 94, 4);
+        catalogIndex.rebuild();
+        
+        for (String search : SEARCHES) {
+            assertSameResult(search, PageRequest.of(0, 100, Sort.by("id")));
+        }
+        for (Sort sort : SORTS) {
+            assertSameResult("индекс", PageRequest.of(0, 100, sort));
+            assertSameResult("индекс", PageRequest.of(1, 2, sort));
+        }
+        assertEquals(1, query("100%", Sort.by("id")).total());
+        assertEquals(1, query("кс_а", Sort.by("id")).total());
+    }
+    
+    @Test
+    void patchedSnapshotMatchesDatabaseAndFullRebuild() throws InterruptedException {
+        Movie first = createMovie("Патч один", "321.00", 101, 11);
+        Movie second = createMovie("Патч два", "322.00", 102, 12);
+        catalogIndex.rebuild();
+        
+        // Изменение и новый фильм применяются к снимку в фоне, без полного перестроения
+        second.setPrice(new BigDecimal("301.00"));
+        movieService.updateMovie(second.getId(), second);
+        Movie third = createMovie("Патч три", "350.00", 103, 13);
+        awaitIndexed("патч", List.of(second.getId(), first.getId(), third.getId()));
+        
+        for (Sort sort : SORTS) {
+            assertSameResult("патч", PageRequest.of(0, 100, sort));
+        }
+        assertSameResult(null, PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "id")));
+        List<Long> patched = ids(query("патч", Sort.by("price")).movies());
+        
+        catalogIndex.rebuild();
+        assertEquals(patched, ids(query("патч", Sort.by("price")).movies()));
+    }
+    
+    private Movie createMovie(String name, String price, int duration, int day) {
+        Movie movie = new Movie(name, "Тестовый фильм", new BigDecimal(price), duration, genre);
+        movie.setReleaseDate(LocalDate.of(2024, 1, day));
+        movie.setRating(new BigDecimal("7.0").add(BigDecimal.valueOf(day, 2)));
+        return movieService.createMovie(movie);
+    }
+    
+    private void assertSameResult(String search, Pageable pageable) {
+        CatalogIndex.Result indexed = catalogIndex.query(search, null, null, null, null, null, pageable,
+                                                         PRICE_BUCKETS).orElseThrow();
+        Page<MovieSummary> database = movieRepository.findWithFilters(
+            search != null ? SearchPatterns.contains(search) : null, null, null, null, null, null, pageable);
+        assertEquals(database.getTotalElements(), indexed.total(), () -> search + " " + pageable);
+        assertEquals(ids(database.getContent()), ids(indexed.movies()), () -> search + " " + pageable);
+    }
+    
+    private CatalogIndex.Result query(String search, Sort sort) {
+        return catalogIndex.query(search, null, null, null, null, null, PageRequest.of(0, 100, sort),
+                                  PRICE_BUCKETS).orElseThrow();
+    }
+    
+    private void awaitIndexed(String search, List<Long> idsByPrice) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            if (ids(query(search, Sort.by("price")).movies()).equals(idsByPrice)) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        fail("Изменения не попали в индекс каталога");
+    }
+    
+    private static List<Long> ids(List<MovieSummary> movies) {
+        return movies.stream().map(MovieSummary::id).toList();
+    }
+}
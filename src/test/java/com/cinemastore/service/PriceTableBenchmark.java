@@ -0,0 +1,106 @@
+package com.cinemastore.service;
+
+import com.cinemastore.entity.PricingRule;
+import com.cinemastore.entity.PricingRuleType;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Расчет цены одного билета по скомпилированной таблице правил.
+ * Запуск: mvn test-compile, затем
+ * java -cp target/test-classes:target/classes:$(mvn -q dependency:build-classpath -Dmdep.outputFile=/dev/stdout)
+ * com.cinemastore.service.PriceTableBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceTableBenchmark {
+    
+    private static final String[] SEATS = {"A1", "C7", "F12", "K3", "P20"};
+    
+    private PriceTable table;
+    private int index;
+    
+    @Setup
+    public void compileRules() {
+        table = PriceTable.compile(List.of(
+            timeOfDay(18, 23, 20),
+            timeOfDay(10, 14, -15),
+            weekday(DayOfWeek.SATURDAY, 10),
+            weekday(DayOfWeek.SUNDAY, 10),
+            occupancy(50, 10),
+            occupancy(80, 25),
+            seatRows("A,B,C", -10),
+            seatRows("K,L,M", 15),
+            promo("STUDENT", -20),
+            promo("FAMILY", -10)));
+    }
+    
+    /**
+     * Расчет в копейках: обращения к массивам и целочисленная арифметика
+     */
+    @Benchmark
+    public long priceCents() {
+        int i = index++ & 1023;
+        return table.priceCents(45_000, i % 24, i % 7, i % 101, SEATS[i % SEATS.length].charAt(0),
+                                (i & 3) == 0 ? "STUDENT" : null);
+    }
+    
+    /**
+     * Как в PricingEngine.quote: цена фильма и результат - BigDecimal
+     */
+    @Benchmark
+    public BigDecimal quote() {
+        int i = index++ & 1023;
+        long baseCents = new BigDecimal("450.00").movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        long cents = table.priceCents(baseCents, i % 24, i % 7, i % 101, SEATS[i % SEATS.length].charAt(0),
+                                      (i & 3) == 0 ? "STUDENT" : null);
+        return BigDecimal.valueOf(cents, 2);
+    }
+    
+    private static PricingRule timeOfDay(int startHour, int endHour, int percent) {
+        PricingRule rule = new PricingRule("time", PricingRuleType.TIME_OF_DAY, percent);
+        rule.setStartHour(startHour);
+        rule.setEndHour(endHour);
+        return rule;
+    }
+    
+    private static PricingRule weekday(DayOfWeek day, int percent) {
+        PricingRule rule = new PricingRule("day", PricingRuleType.WEEKDAY, percent);
+        rule.setDayOfWeek(day);
+        return rule;
+    }
+    
+    private static PricingRule occupancy(int minPercent, int percent) {
+        PricingRule rule = new PricingRule("surge", PricingRuleType.OCCUPANCY, percent);
+        rule.setMinOccupancyPercent(minPercent);
+        return rule;
+    }
+    
+    private static PricingRule seatRows(String rows, int percent) {
+        PricingRule rule = new PricingRule("rows", PricingRuleType.SEAT_CATEGORY, percent);
+        rule.setSeatRows(rows);
+        return rule;
+    }
+    
+    private static PricingRule promo(String code, int percent) {
+        PricingRule rule = new PricingRule("promo", PricingRuleType.PROMO_CODE, percent);
+        rule.setPromoCode(code);
+        return rule;
+    }
+    
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(PriceTableBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.cinemastore.service;
+
+import com.cinemastore.entity.PricingRule;
+import com.cinemastore.entity.PricingRuleType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Компиляция правил ценообразования и расчет цены в копейках
+ */
+class PriceTableTest {
+    
+    @Test
+    void rulesOfOneTypeAreMultiplied() {
+        PriceTable table = PriceTable.compile(List.of(timeOfDay(18, 23, 20), timeOfDay(20, 22, 10)));
+        
+        assertEquals(52_800, table.priceCents(40_000, 21, 0, 0, (char) 0, null));
+        assertEquals(48_000, table.priceCents(40_000, 19, 0, 0, (char) 0, null));
+        assertEquals(40_000, table.priceCents(40_000, 12, 0, 0, (char) 0, null));
+    }
+    
+    @Test
+    void intervalAcrossMidnightCoversBothSides() {
+        PriceTable table = PriceTable.compile(List.of(timeOfDay(22, 2, -50)));
+        
+        assertEquals(20_000, table.priceCents(40_000, 23, 0, 0, (char) 0, null));
+        assertEquals(20_000, table.priceCents(40_000, 1, 0, 0, (char) 0, null));
+        assertEquals(40_000, table.priceCents(40_000, 2, 0, 0, (char) 0, null));
+    }
+    
+    @Test
+    void stackedMarkupsAreClampedInsteadOfOverflowing() {
+        List<PricingRule> rules = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            rules.add(timeOfDay(0, 24, 500));
+        }
+        PriceTable table = PriceTable.compile(rules);
+        
+        long cents = table.priceCents(40_000, 12, 0, 0, (char) 0, null);
+        assertEquals(40_000L * PriceTable.MAX_FACTOR / PriceTable.ONE, cents);
+    }
+    
+    @Test
+    void clampedFactorsOfAllTypesStayPositive() {
+        List<PricingRule> rules = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            rules.add(timeOfDay(0, 24, 500));
+            rules.add(seatRows("A", 500));
+        }
+        PricingRule surge = new PricingRule("surge", PricingRuleType.OCCUPANCY, 500);
+        surge.setMinOccupancyPercent(0);
+        rules.add(surge);
+        PriceTable table = PriceTable.compile(rules);
+        
+        assertEquals(40_000L * PriceTable.MAX_FACTOR / PriceTable.ONE,
+                     table.priceCents(40_000, 12, 0, 100, 'A', null));
+    }
+    
+    private static PricingRule timeOfDay(int startHour, int endHour, int percent) {
+        PricingRule rule = new PricingRule("time", PricingRuleType.TIME_OF_DAY, percent);
+        rule.setStartHour(startHour);
+        rule.setEndHour(endHour);
+        return rule;
+    }
+    
+    private static PricingRule seatRows(String rows, int percent) {
+        PricingRule rule = new PricingRule("rows", PricingRuleType.SEAT_CATEGORY, percent);
+        rule.setSeatRows(rows);
+        return rule;
+    }
+}
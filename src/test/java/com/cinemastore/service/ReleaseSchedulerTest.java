@@ -0,0 +1,144 @@
+package com.cinemastore.service;
+
+import com.cinemastore.H2ApplicationTest;
+import com.cinemastore.entity.Movie;
+import com.cinemastore.repository.GenreRepository;
+import com.cinemastore.repository.MovieRepository;
+import com.cinemastore.repository.SchedulerMarkerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Окно дат планировщика проката: выход в прокат - дни после отметки по текущий включительно,
+ * снятие - последний день проката от отметки включительно до текущего исключительно.
+ * Каждый день обрабатывается один раз, в том числе при одновременном первом запуске.
+ */
+class ReleaseSchedulerTest extends H2ApplicationTest {
+    
+    private static final int THREADS = 4;
+    
+    @Autowired
+    private ReleaseScheduler releaseScheduler;
+    
+    @Autowired
+    private SchedulerMarkerRepository markerRepository;
+    
+    @Autowired
+    private MovieRepository movieRepository;
+    
+    @Autowired
+    private GenreRepository genreRepository;
+    
+    @BeforeEach
+    void resetMarker() {
+        markerRepository.deleteAll();
+    }
+    
+    @Test
+    void firstRunProcessesOnlyTheCatchUpWindow() {
+        LocalDate today = LocalDate.of(2090, 6, 10);
+        Movie releasedBefore = movie(false, today.minusDays(1), null);
+        Movie releasedToday = movie(false, today, null);
+        Movie releasedTomorrow = movie(false, today.plusDays(1), null);
+        Movie releasedTodayLastDay = movie(false, today, today);
+        Movie endedBefore = movie(true, today.minusDays(10), today.minusDays(2));
+        Movie endedYesterday = movie(true, today.minusDays(10), today.minusDays(1));
+        Movie endsToday = movie(true, today.minusDays(10), today);
+        
+        assertEquals(3, releaseScheduler.applyThrough(today));
+        
+        assertFalse(available(releasedBefore));
+        assertTrue(available(releasedToday));
+        assertFalse(available(releasedTomorrow));
+        assertTrue(available(releasedTodayLastDay));
+        assertTrue(available(endedBefore));
+        assertFalse(available(endedYesterday));
+        assertTrue(available(endsToday));
+        assertEquals(today, markerRepository.findById("catalog-release").orElseThrow().getProcessedThrough());
+    }
+    
+    @Test
+    void laterRunsCatchUpMissedDaysOnce() {
+        LocalDate today = LocalDate.of(2091, 3, 1);
+        assertEquals(0, releaseScheduler.applyThrough(today));
+        Movie releasedTomorrow = movie(false, today.plusDays(1), null);
+        Movie releasedInTwoDays = movie(false, today.plusDays(2), null);
+        Movie releasedInThreeDays = movie(false, today.plusDays(3), null);
+        Movie endsToday = movie(true, today.minusDays(10), today);
+        Movie endsInTwoDays = movie(true, today.minusDays(10), today.plusDays(2));
+        
+        assertEquals(0, releaseScheduler.applyThrough(today));
+        assertEquals(3, releaseScheduler.applyThrough(today.plusDays(2)));
+        assertEquals(0, releaseScheduler.applyThrough(today.plusDays(2)));
+        
+        assertTrue(available(releasedTomorrow));
+        assertTrue(available(releasedInTwoDays));
+        assertFalse(available(releasedInThreeDays));
+        assertFalse(available(endsToday));
+        assertTrue(available(endsInTwoDays));
+        
+        // Ручное переключение после обработки дня повторным запуском не перезаписывается
+        setAvailable(releasedTomorrow, false);
+        assertEquals(0, releaseScheduler.applyThrough(today.plusDays(2)));
+        assertFalse(available(releasedTomorrow));
+    }
+    
+    @Test
+    void concurrentFirstRunsCreateOneMarkerAndApplyOnce() throws Exception {
+        LocalDate today = LocalDate.of(2092, 9, 15);
+        Movie releasedToday = movie(false, today, null);
+        Movie endedYesterday = movie(true, today.minusDays(10), today.minusDays(1));
+        
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return releaseScheduler.applyThrough(today);
+                }));
+            }
+            start.countDown();
+            
+            int changed = 0;
+            for (Future<Integer> future : futures) {
+                changed += future.get(30, TimeUnit.SECONDS);
+            }
+            assertEquals(2, changed);
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(available(releasedToday));
+        assertFalse(available(endedYesterday));
+        assertEquals(1, markerRepository.count());
+    }
+    
+    private Movie movie(boolean available, LocalDate releaseDate, LocalDate endOfRunDate) {
+        Movie movie = new Movie("Прокат " + releaseDate + " " + endOfRunDate, "Тестовый фильм",
+                                new BigDecimal("300.00"), 100, genreRepository.findAll().get(0));
+        movie.setAvailable(available);
+        movie.setReleaseDate(releaseDate);
+        movie.setEndOfRunDate(endOfRunDate);
+        return movieRepository.save(movie);
+    }
+    
+    private boolean available(Movie movie) {
+        return movieRepository.findById(movie.getId()).orElseThrow().isAvailable();
+    }
+    
+    private void setAvailable(Movie movie, boolean available) {
+        Movie current = movieRepository.findById(movie.getId()).orElseThrow();
+        current.setAvailable(available);
+        movieRepository.save(current);
+    }
+}
@@ -0,0 +1,48 @@
+package com.cinemastore.service;
+
+import com.cinemastore.entity.Ticket;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Распознавание точных значений поиска: номер билета должен совпадать с форматом,
+ * который выдает Ticket, иначе поиск по уникальному индексу не срабатывает
+ */
+class SearchPatternsTest {
+    
+    @Test
+    void generatedTicketNumberIsRecognized() {
+        String number = Ticket.newTicketNumberPrefix();
+        
+        assertTrue(SearchPatterns.isTicketNumber(number));
+        assertTrue(SearchPatterns.isTicketNumber(number.toLowerCase(Locale.ROOT)));
+    }
+    
+    @Test
+    void groupTicketNumberIsRecognized() {
+        assertTrue(SearchPatterns.isTicketNumber(Ticket.newTicketNumberPrefix() + "-3"));
+    }
+    
+    @Test
+    void legacyTicketNumberIsRecognized() {
+        assertTrue(SearchPatterns.isTicketNumber("TKT-1700000000000"));
+        assertTrue(SearchPatterns.isTicketNumber("TKT-1700000000000-2"));
+    }
+    
+    @Test
+    void partialOrForeignValuesAreNotTicketNumbers() {
+        assertFalse(SearchPatterns.isTicketNumber("TKT-"));
+        assertFalse(SearchPatterns.isTicketNumber("TKT-1700000000000-ZZZZZZZZ"));
+        assertFalse(SearchPatterns.isTicketNumber("Иванов"));
+    }
+    
+    @Test
+    void containsEscapesLikeWildcards() {
+        assertEquals("%50\\%\\_off%", SearchPatterns.contains("50%_OFF"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.cinemastore.service;
+
+import com.cinemastore.dto.Suggestion;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Лучшие записи узла префиксного дерева совпадают с полным перебором:
+ * порядок по убыванию веса, при равенстве - по тексту без учета регистра,
+ * запись, найденная по нескольким словам, выдается один раз.
+ */
+class SuggestionTrieTest {
+    
+    private static final int TOP_K = 5;
+    private static final Comparator<SuggestionTrie.Entry> EXPECTED_ORDER =
+        Comparator.comparingLong(SuggestionTrie.Entry::weight).reversed()
+            .thenComparing(entry -> entry.suggestion().text(), String.CASE_INSENSITIVE_ORDER);
+    
+    @Test
+    void ordersByWeightThenText() {
+        SuggestionTrie trie = SuggestionTrie.build(List.of(
+            entry(1, "Матрица", 10),
+            entry(2, "мастер", 30),
+            entry(3, "Маска", 30),
+            entry(4, "Мадагаскар", 5),
+            entry(5, "Марсианин", 20)), TOP_K);
+        
+        assertEquals(List.of("Маска", "мастер", "Марсианин", "Матрица", "Мадагаскар"), texts(trie.lookup("ма", TOP_K)));
+        assertEquals(List.of("Маска", "мастер"), texts(trie.lookup("ма", 2)));
+        assertEquals(List.of("Маска", "мастер"), texts(trie.lookup("мас", TOP_K)));
+        assertEquals(List.of(), trie.lookup("мы", TOP_K));
+    }
+    
+    @Test
+    void matchesWordStartsOnceAndNormalizesKeys() {
+        SuggestionTrie trie = SuggestionTrie.build(List.of(
+            entry(1, "Пираты Карибского моря", 50),
+            entry(2, "Море, море", 40),
+            entry(3, "Ёлки", 10)), TOP_K);
+        
+        assertEquals(List.of("Пираты Карибского моря"), texts(trie.lookup("КАРИБ", TOP_K)));
+        assertEquals(List.of("Пираты Карибского моря", "Море, море"), texts(trie.lookup("мор", TOP_K)));
+        assertEquals(List.of("Ёлки"), texts(trie.lookup("елк", TOP_K)));
+        assertEquals(List.of("Море, море"), texts(trie.lookup("море  мо", TOP_K)));
+        assertEquals(List.of(), trie.lookup("  ", TOP_K));
+    }
+    
+    @Test
+    void topKMatchesBruteForceForEveryPrefix() {
+        Random random = new Random(42);
+        String[] words = {"кот", "кошка", "корабль", "ко", "дом", "домик", "дорога", "дождь", "а", "аб"};
+        List<SuggestionTrie.Entry> entries = new ArrayList<>();
+        for (long id = 1; id <= 300; id++) {
+            int wordCount = 1 + random.nextInt(3);
+            StringBuilder text = new StringBuilder();
+            for (int w = 0; w < wordCount; w++) {
+                text.append(w > 0 ? " " : "").append(words[random.nextInt(words.length)]);
+            }
+            entries.add(entry(id, text + " " + id, random.nextInt(20)));
+        }
+        SuggestionTrie trie = SuggestionTrie.build(entries, TOP_K);
+        
+        assertEquals(entries.size(), trie.size());
+        for (String word : words) {
+            for (int length = 1; length <= word.length(); length++) {
+                String prefix = word.substring(0, length);
+                assertEquals(bruteForce(entries, prefix), trie.lookup(prefix, TOP_K), prefix);
+            }
+        }
+    }
+    
+    private static List<Suggestion> bruteForce(List<SuggestionTrie.Entry> entries, String prefix) {
+        return entries.stream()
+            .filter(entry -> {
+                for (String word : SuggestionTrie.normalize(entry.suggestion().text()).split(" ")) {
+                    if (word.startsWith(prefix)) {
+                        return true;
+                    }
+                }
+                return false;
+            })
+            .sorted(EXPECTED_ORDER)
+            .limit(TOP_K)
+            .map(SuggestionTrie.Entry::suggestion)
+            .toList();
+    }
+    
+    private static SuggestionTrie.Entry entry(long id, String text, long weight) {
+        return new SuggestionTrie.Entry(new Suggestion(Suggestion.Type.MOVIE, id, text), weight);
+    }
+    
+    private static List<String> texts(List<Suggestion> suggestions) {
+        return suggestions.stream().map(Suggestion::text).toList();
+    }
+}
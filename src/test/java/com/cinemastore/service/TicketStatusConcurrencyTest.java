@@ -0,0 +1,136 @@
+package com.cinemastore.service;
+
+import com.cinemastore.H2ApplicationTest;
+import com.cinemastore.entity.Movie;
+import com.cinemastore.entity.Ticket;
+import com.cinemastore.entity.TicketStatus;
+import com.cinemastore.entity.User;
+import com.cinemastore.repository.MovieRepository;
+import com.cinemastore.repository.TicketRepository;
+import com.cinemastore.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Параллельные переходы статуса одного билета: условный UPDATE по ожидаемому статусу
+ * не теряет переходов - каждый успешный переход увеличивает версию ровно на единицу,
+ * а конфликтующие завершающие переходы применяются ровно один раз.
+ */
+class TicketStatusConcurrencyTest extends H2ApplicationTest {
+    
+    private static final int THREADS_PER_STATUS = 8;
+    private static final AtomicInteger SHOWTIME_OFFSET = new AtomicInteger();
+    
+    @Autowired
+    private TicketService ticketService;
+    
+    @Autowired
+    private TicketRepository ticketRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private MovieRepository movieRepository;
+    
+    private User customer;
+    private User cashier;
+    private Movie movie;
+    
+    @BeforeEach
+    void loadUsersAndMovie() {
+        customer = userRepository.findByUsername("customer").orElseThrow();
+        cashier = userRepository.findByUsername("cashier").orElseThrow();
+        movie = movieRepository.findAll().stream().filter(Movie::isAvailable).findFirst().orElseThrow();
+    }
+    
+    @Test
+    void conflictingTerminalTransitionsApplyExactlyOnce() throws Exception {
+        Ticket ticket = newTicket();
+        ticketService.updateStatus(ticket.getId(), TicketStatus.PAID, cashier);
+        ticketService.updateStatus(ticket.getId(), TicketStatus.ACTIVE, cashier);
+        long versionBefore = version(ticket.getId());
+        
+        Map<TicketStatus, Integer> applied = race(ticket.getId(), TicketStatus.USED, TicketStatus.CANCELLED);
+        
+        assertEquals(1, applied.values().stream().mapToInt(Integer::intValue).sum());
+        TicketStatus winner = applied.keySet().iterator().next();
+        assertEquals(winner, ticketRepository.findById(ticket.getId()).orElseThrow().getStatus());
+        assertEquals(versionBefore + 1, version(ticket.getId()));
+    }
+    
+    @Test
+    void parallelPaidAndCancelledLoseNoTransition() throws Exception {
+        Ticket ticket = newTicket();
+        long versionBefore = version(ticket.getId());
+        
+        Map<TicketStatus, Integer> applied = race(ticket.getId(), TicketStatus.PAID, TicketStatus.CANCELLED);
+        
+        // Каждый статус применяется не более одного раза: повтор того же перехода недопустим
+        int paid = applied.getOrDefault(TicketStatus.PAID, 0);
+        int cancelled = applied.getOrDefault(TicketStatus.CANCELLED, 0);
+        assertTrue(paid <= 1 && cancelled <= 1 && paid + cancelled >= 1, applied.toString());
+        // Ни один успешный переход не перезаписан: версия выросла на число успехов
+        assertEquals(versionBefore + paid + cancelled, version(ticket.getId()));
+        assertEquals(cancelled == 1 ? TicketStatus.CANCELLED : TicketStatus.PAID,
+                     ticketRepository.findById(ticket.getId()).orElseThrow().getStatus());
+    }
+    
+    /**
+     * Одновременный запуск переходов в оба статуса
+     *
+     * @return число успешных переходов по целевому статусу
+     */
+    private Map<TicketStatus, Integer> race(Long ticketId, TicketStatus first, TicketStatus second) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS_PER_STATUS * 2);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<TicketStatus>> results = new ArrayList<>();
+            for (int i = 0; i < THREADS_PER_STATUS * 2; i++) {
+                TicketStatus target = i % 2 == 0 ? first : second;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        ticketService.updateStatus(ticketId, target, cashier);
+                        return target;
+                    } catch (RuntimeException e) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            
+            List<TicketStatus> applied = new ArrayList<>();
+            for (Future<TicketStatus> result : results) {
+                TicketStatus status = result.get(30, TimeUnit.SECONDS);
+                if (status != null) {
+                    applied.add(status);
+                }
+            }
+            return applied.stream().collect(Collectors.toMap(status -> status, status -> 1, Integer::sum));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private Ticket newTicket() {
+        LocalDateTime showtime = LocalDateTime.now().plusDays(3).withSecond(0).withNano(0)
+            .plusMinutes(SHOWTIME_OFFSET.incrementAndGet());
+        return ticketService.createTicket(customer, movie, showtime, "A1", null);
+    }
+    
+    private long version(Long ticketId) {
+        return ticketRepository.findById(ticketId).orElseThrow().getVersion();
+    }
+}
@@ -0,0 +1,124 @@
+package com.cinemastore.service;
+
+import com.cinemastore.H2ApplicationTest;
+import com.cinemastore.entity.User;
+import com.cinemastore.repository.TicketArchiveRepository;
+import com.cinemastore.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.NoOpPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Регистрация опирается на ограничения уникальности БД: нарушение ограничения
+ * превращается в DuplicateUserException с полем формы, в том числе при гонке
+ * параллельных регистраций, которую не ловит предварительная проверка.
+ */
+class UserRegistrationTest extends H2ApplicationTest {
+    
+    private static final int THREADS = 8;
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Test
+    void duplicateEmailIsReportedOnEmailField() {
+        String suffix = unique();
+        userService.registerUser(newUser("first" + suffix, "same" + suffix + "@test.ru"));
+        
+        DuplicateUserException e = assertThrows(DuplicateUserException.class,
+            () -> userService.registerUser(newUser("second" + suffix, "same" + suffix + "@test.ru")));
+        
+        assertEquals(DuplicateUserException.EMAIL, e.getField());
+        assertFalse(userRepository.existsByUsername("second" + suffix));
+    }
+    
+    @Test
+    void duplicateUsernameIsReportedOnUsernameField() {
+        DuplicateUserException e = assertThrows(DuplicateUserException.class,
+            () -> userService.registerUser(newUser("customer", "other" + unique() + "@test.ru")));
+        
+        assertEquals(DuplicateUserException.USERNAME, e.getField());
+    }
+    
+    @Test
+    void concurrentRegistrationsOfOneNameCreateOneUser() throws Exception {
+        String username = "racer" + unique();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<User>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                String email = username + "-" + i + "@test.ru";
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return userService.registerUser(newUser(username, email));
+                }));
+            }
+            start.countDown();
+            
+            int created = 0;
+            for (Future<User> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                    created++;
+                } catch (ExecutionException e) {
+                    DuplicateUserException duplicate = assertInstanceOf(DuplicateUserException.class, e.getCause());
+                    assertEquals(DuplicateUserException.USERNAME, duplicate.getField());
+                }
+            }
+            assertEquals(1, created);
+            assertTrue(userRepository.existsByUsername(username));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void postgresqlViolationMessageNamesTheField() {
+        UserRepository repository = mock(UserRepository.class);
+        UsernameBloomFilter filter = new UsernameBloomFilter(repository, mock(PlatformTransactionManager.class),
+                                                             1000, 0.01);
+        UserService service = new UserService(repository, mock(TicketArchiveRepository.class),
+                                              NoOpPasswordEncoder.getInstance(), filter);
+        when(repository.saveAndFlush(any(User.class))).thenThrow(new DataIntegrityViolationException(
+            "could not execute statement",
+            new SQLException("ERROR: duplicate key value violates unique constraint \"users_email_key\"\n"
+                             + "  Detail: Key (email)=(bob@test.ru) already exists.", "23505")));
+        
+        DuplicateUserException e = assertThrows(DuplicateUserException.class,
+            () -> service.registerUser(newUser("bob", "bob@test.ru")));
+        
+        assertEquals(DuplicateUserException.EMAIL, e.getField());
+    }
+    
+    private static String unique() {
+        return String.valueOf(SEQUENCE.incrementAndGet());
+    }
+    
+    private static User newUser(String username, String email) {
+        User user = new User();
+        user.setUsername(username);
+        user.setEmail(email);
+        user.setPassword("secret123");
+        user.setFirstName("Тест");
+        user.setLastName("Тестов");
+        return user;
+    }
+}